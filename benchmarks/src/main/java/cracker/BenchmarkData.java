@@ -0,0 +1,36 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Inputs shared by the benchmarks, read from the directory named by
+ * {@code -Dcracker.data} (default: the working directory), which must hold
+ * dict.txt and passwd1.txt.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Path file(String name) {
+        return Paths.get(System.getProperty("cracker.data", "."), name);
+    }
+
+    /** The first {@code count} words of dict.txt, or all of them if it is shorter. */
+    static List<String> words(int count) throws IOException {
+        List<String> all = Files.readAllLines(file("dict.txt"));
+        return all.subList(0, Math.min(count, all.size()));
+    }
+
+    /** The encrypted password field of every entry in passwd1.txt. */
+    static List<String> hashes() throws IOException {
+        return Files.readAllLines(file("passwd1.txt")).stream()
+                .filter(line -> !line.isBlank())
+                .map(line -> line.split(":")[1])
+                .toList();
+    }
+}
@@ -0,0 +1,117 @@
+package cracker;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a single crypt(3) in each of the four forms the crackers use: the
+ * string API, the raw scalar path {@link BatchVerifier} falls back to, one
+ * 64-lane bitsliced batch and one batch of the vector engine, as wide as the
+ * JVM's preferred vectors. Keys cycle through the first {@code words} entries
+ * of the dictionary. Every thread owns its scratch state, so running with
+ * {@code -t N} reports crypts per second per thread as well as in total.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CryptBenchmark {
+
+    // 64 keys per long of a 2048-bit vector
+    private static final int VECTOR_KEYS = 2048;
+
+    @Param({"1024", "65536"})
+    public int words;
+
+    private String[] plain;
+    private long[] keys;
+    private int saltBits;
+    private final jcrypt.Scratch scratch = new jcrypt.Scratch();
+    private final BitslicedCrypt bitsliced = new BitslicedCrypt();
+    private VectorCrypt vector;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        plain = BenchmarkData.words(words).toArray(new String[0]);
+        keys = new long[plain.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = jcrypt.canonicalKey(plain[i]);
+        }
+        saltBits = jcrypt.saltBits("Pk");
+        vector = new VectorCrypt();
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == keys.length ? 0 : next + 1;
+        return index;
+    }
+
+    private long nextKey() {
+        return keys[nextIndex()];
+    }
+
+    /** Latency of the public API, including salt parsing and encoding the result. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String crypt() {
+        return jcrypt.crypt("Pk", plain[nextIndex()]);
+    }
+
+    /** Throughput of the scalar engine: one canonical key, one salt, raw hash out. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long cryptRaw() {
+        return jcrypt.cryptRaw(saltBits, nextKey(), scratch);
+    }
+
+    /** Throughput of the bitslice engine, counted per key so it compares directly with {@link #cryptRaw}. */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BitslicedCrypt.LANES)
+    public long bitsliced() {
+        for (int lane = 0; lane < BitslicedCrypt.LANES; lane++) {
+            bitsliced.setKey(lane, nextKey());
+        }
+        bitsliced.crypt(saltBits);
+        return bitsliced.hash(0);
+    }
+
+    /**
+     * Throughput of the vector engine, counted per key like {@link #bitsliced}. Its width depends on the CPU, so each
+     * invocation runs as many batches as make up {@link #VECTOR_KEYS} keys, the widest batch a JVM can have.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(VECTOR_KEYS)
+    public long vector() {
+        long hash = 0;
+        for (int batch = 0; batch < VECTOR_KEYS / VectorCrypt.LANES; batch++) {
+            for (int lane = 0; lane < VectorCrypt.LANES; lane++) {
+                vector.setKey(lane, nextKey());
+            }
+            vector.crypt(saltBits);
+            hash ^= vector.hash(0);
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,56 @@
+package cracker;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Guess generation on its own: one {@link CandidateStream} pass of the default
+ * rules over the first {@code words} dictionary words, without hashing. Run
+ * with {@code -prof gc} to see the allocation rate; a pass should allocate
+ * little beyond the stream's buffers no matter how many guesses it yields.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ManglerBenchmark {
+
+    @Param({"1024", "16384"})
+    public int words;
+
+    @Param({"0", "1"})
+    public int level;
+
+    private WordList dictionary;
+
+    @Setup
+    public void setUp() throws IOException {
+        dictionary = WordList.of(BenchmarkData.words(words));
+    }
+
+    @Benchmark
+    public long stream(Blackhole blackhole) {
+        CandidateStream candidates = new CandidateStream(dictionary, Mangler.DEFAULT, 0, dictionary.size(), level);
+        long count = 0;
+        while (candidates.next()) {
+            blackhole.consume(candidates.key());
+            count++;
+        }
+        return count;
+    }
+}
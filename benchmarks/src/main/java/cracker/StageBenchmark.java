@@ -0,0 +1,98 @@
+package cracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One whole dictionary stage end to end: the first {@code words} words of
+ * dict.txt mangled at {@code level}, deduplicated and verified against
+ * passwd1.txt, split into equal slices over {@code threads} workers that each
+ * own a {@link BatchVerifier} and {@link KeySet}, as the crackers' workers do.
+ * Cracks are counted but not claimed, so every invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StageBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"256", "2048"})
+    public int words;
+
+    @Param({"0", "1"})
+    public int level;
+
+    @Param({"BITSLICE", "SCALAR"})
+    public String engine;
+
+    private WordList dictionary;
+    private SaltIndex saltIndex;
+    private ExecutorService pool;
+
+    @Setup
+    public void setUp() throws IOException {
+        dictionary = WordList.of(BenchmarkData.words(words));
+        saltIndex = new SaltIndex(BenchmarkData.hashes());
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /** Returns how many guesses matched a target, so the work cannot be optimised away. */
+    @Benchmark
+    public long stage() throws InterruptedException, ExecutionException {
+        LongAdder matches = new LongAdder();
+        BatchVerifier.Engine verifierEngine = BatchVerifier.Engine.valueOf(engine);
+        int size = dictionary.size();
+        List<Future<?>> slices = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) size * t / threads);
+            int to = (int) ((long) size * (t + 1) / threads);
+            slices.add(pool.submit(() -> {
+                BatchVerifier verifier = new BatchVerifier(saltIndex, verifierEngine,
+                        (target, position) -> matches.increment());
+                KeySet triedKeys = new KeySet(KeySet.DEFAULT_WINDOW);
+                CandidateStream candidates = new CandidateStream(dictionary, Mangler.DEFAULT, from, to, level);
+                while (candidates.next()) {
+                    long key = candidates.key();
+                    if (triedKeys.add(key)) {
+                        verifier.add(key, candidates.position());
+                    }
+                }
+                verifier.flush();
+            }));
+        }
+        for (Future<?> slice : slices) {
+            slice.get();
+        }
+        return matches.sum();
+    }
+}
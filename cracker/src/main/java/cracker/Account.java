@@ -0,0 +1,152 @@
+package cracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * One entry of the password file: the account name, its crypt hash and the
+ * GECOS, home directory and shell fields, which are empty if the line has none.
+ * Whether it is cracked is kept by {@link SaltIndex}.
+ */
+final class Account {
+
+    final String username;
+    final String hash;
+    final String gecos;
+    final String home;
+    final String shell;
+
+    Account(String username, String hash) {
+        this(username, hash, "", "", "");
+    }
+
+    Account(String username, String hash, String gecos, String home, String shell) {
+        this.username = username;
+        this.hash = hash;
+        this.gecos = gecos;
+        this.home = home;
+        this.shell = shell;
+    }
+
+    /**
+     * Parses an {@code account:hash:uid:gid:gecos:home:shell} line, of which
+     * only the first two fields are required, or returns null if it has no
+     * hash of at least the two salt characters.
+     */
+    static Account parse(String line) {
+        String[] parts = line.split(":", 7);
+        if (parts.length < 2 || parts[1].length() < 2) {
+            return null;
+        }
+        return new Account(parts[0], parts[1], field(parts, 4), field(parts, 5), field(parts, 6));
+    }
+
+    /**
+     * At most this many personal words per account. Each is tried as is and
+     * with every rule, so an account's personal words cost at most
+     * {@code MAX_PERSONAL_WORDS * (1 + rules)} crypts: 1,096 with the 136
+     * built-in rules.
+     */
+    static final int MAX_PERSONAL_WORDS = 8;
+
+    /**
+     * Words the account's own fields suggest as its password, in lower case
+     * and without the username itself, most likely first: the words of the
+     * full name, the usual ways of joining them, such as
+     * {@code geoffreyspaulding}, {@code spauldinggeoffrey},
+     * {@code gspaulding}, {@code geoffreys} and the initials {@code gts}, the
+     * other words of the GECOS field and the last part of the home directory
+     * unless it repeats the username. Shells are left out, as every account
+     * shares the same few. At most {@link #MAX_PERSONAL_WORDS} words.
+     */
+    List<String> personalWords() {
+        Set<String> words = new LinkedHashSet<>();
+        String login = username.toLowerCase(Locale.ROOT);
+        String[] name = words(gecos.split(",", 2)[0]);
+        for (String word : name) {
+            words.add(word);
+        }
+        if (name.length > 1) {
+            String first = name[0];
+            String last = name[name.length - 1];
+            StringBuilder initials = new StringBuilder();
+            StringBuilder all = new StringBuilder();
+            for (String word : name) {
+                initials.append(word.charAt(0));
+                all.append(word);
+            }
+            words.add(first + last);
+            words.add(last + first);
+            words.add(all.toString());
+            words.add(first.charAt(0) + last);
+            words.add(first + last.charAt(0));
+            words.add(last + first.charAt(0));
+            words.add(initials.toString());
+            words.add(initials.substring(0, initials.length() - 1) + last);
+        }
+        for (String word : words(gecos)) {
+            words.add(word);
+        }
+        for (String word : words(baseName(home))) {
+            if (!login.contains(word) && !word.contains(login)) {
+                words.add(word);
+            }
+        }
+        words.remove(login);
+        words.remove("");
+        List<String> personal = new ArrayList<>(words);
+        return personal.size() > MAX_PERSONAL_WORDS ? new ArrayList<>(personal.subList(0, MAX_PERSONAL_WORDS))
+                : personal;
+    }
+
+    /** Reads a password file, skipping blank lines and warning about malformed ones. */
+    static List<Account> load(Path file) throws IOException {
+        List<Account> accounts = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Account account = parse(line);
+                if (account == null) {
+                    System.err.println("Warning: Skipping malformed line in password file: " + line);
+                    continue;
+                }
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    private static String field(String[] parts, int index) {
+        return index < parts.length ? parts[index] : "";
+    }
+
+    private static String baseName(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    // The runs of letters and digits in a field, in lower case.
+    private static String[] words(String field) {
+        String trimmed = field.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" ");
+    }
+
+    /** The hash of every account, in file order. */
+    static List<String> hashes(List<Account> accounts) {
+        List<String> hashes = new ArrayList<>();
+        for (Account account : accounts) {
+            hashes.add(account.hash);
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,213 @@
+package cracker;
+
+/**
+ * Verifies candidate keys against a {@link SaltIndex} in batches.
+ *
+ * Guesses are queued with {@link #add}; each full batch of
+ * {@link BitslicedCrypt#LANES}, or {@link VectorCrypt#LANES} with the vector
+ * engine, is hashed once per salt group that still has uncracked hashes and
+ * compared against every target in that group. A group with at least
+ * {@link #LOOKUP_TARGETS} targets is checked the other way round: every
+ * lane's hash is extracted and looked up in the group's sorted hashes, so the
+ * cost no longer grows with the number of targets. With the scalar engine the
+ * same batch is run through {@link jcrypt#cryptRaw} one key at a time.
+ * Callers must {@link #flush} at the end of a stage so the last, partial
+ * batch is checked. Not thread-safe; use one per worker.
+ */
+final class BatchVerifier {
+
+    enum Engine {
+        BITSLICE, SCALAR, VECTOR;
+
+        /** Parses an engine name as given on the command line, or returns null. */
+        static Engine parse(String name) {
+            for (Engine engine : values()) {
+                if (engine.name().equalsIgnoreCase(name)) {
+                    return engine;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Whether this JVM can run the engine. The vector engine needs the
+         * incubating {@code jdk.incubator.vector} module, which is only
+         * resolved with {@code --add-modules jdk.incubator.vector}.
+         */
+        boolean isAvailable() {
+            return this != VECTOR || ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        }
+    }
+
+    /**
+     * Receives each cracked target together with the position, as given to
+     * {@link #add}, of a guess that produced its hash.
+     */
+    interface CrackHandler {
+        void cracked(int target, long position);
+    }
+
+    /**
+     * Targets under one salt from which looking up each lane's hash beats
+     * comparing each target against every lane.
+     */
+    static final int LOOKUP_TARGETS = 160;
+
+    private final SaltIndex saltIndex;
+    private final CrackHandler handler;
+    private final Engine engine;
+    private final BitslicedCrypt bitsliced;
+    private final VectorCrypt vector;
+    private final jcrypt.Scratch scratch;
+    private final long[] keys;
+    private final long[] positions;
+    private final long[] hashes;
+    private int size;
+    private Runnable flushListener = () -> { };
+    private StageStats.Counters counters;
+
+    BatchVerifier(SaltIndex saltIndex, Engine engine, CrackHandler handler) {
+        this.saltIndex = saltIndex;
+        this.engine = engine;
+        this.handler = handler;
+        this.bitsliced = engine == Engine.BITSLICE ? new BitslicedCrypt() : null;
+        this.vector = engine == Engine.VECTOR ? new VectorCrypt() : null;
+        this.scratch = engine == Engine.SCALAR ? new jcrypt.Scratch() : null;
+        int batch = engine == Engine.VECTOR ? VectorCrypt.LANES : BitslicedCrypt.LANES;
+        this.keys = new long[batch];
+        this.positions = new long[batch];
+        this.hashes = engine == Engine.SCALAR ? null : new long[batch];
+    }
+
+    /**
+     * Queues a guess by its {@link jcrypt#canonicalKey} and the caller's position
+     * for it, verifying the batch once it is full. The guess text is only needed
+     * again if it cracks something.
+     */
+    void add(long key, long position) {
+        keys[size] = key;
+        positions[size] = position;
+        if (++size == keys.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Runs after every {@link #flush}, once all guesses added so far have been
+     * verified, so callers can record progress without flushing early.
+     */
+    void onFlush(Runnable listener) {
+        this.flushListener = listener;
+    }
+
+    /** Counts every crypt this verifier runs as {@link StageStats#CRYPTS}; call from the owning thread. */
+    void countInto(StageStats.Counters counters) {
+        this.counters = counters;
+    }
+
+    /** Verifies whatever is queued. */
+    void flush() {
+        if (size > 0) {
+            long crypts = engine == Engine.BITSLICE ? flushBitsliced()
+                    : engine == Engine.VECTOR ? flushVector() : flushScalar();
+            if (counters != null) {
+                counters.add(StageStats.CRYPTS, crypts);
+            }
+            size = 0;
+        }
+        flushListener.run();
+    }
+
+    // All return how many crypts they ran, a bitsliced batch counting each of its keys.
+    private long flushBitsliced() {
+        for (int lane = 0; lane < size; lane++) {
+            bitsliced.setKey(lane, keys[lane]);
+        }
+        long lanes = size == BitslicedCrypt.LANES ? -1L : (1L << size) - 1;
+        long crypts = 0;
+
+        for (int group = 0; group < saltIndex.groupCount(); group++) {
+            if (saltIndex.isExhausted(group)) {
+                continue;
+            }
+            bitsliced.crypt(saltIndex.saltBits(group));
+            crypts += size;
+            if (saltIndex.targetCount(group) >= LOOKUP_TARGETS) {
+                bitsliced.hashes(hashes);
+                lookUp(group);
+                continue;
+            }
+            for (int i = 0; i < saltIndex.targetCount(group); i++) {
+                int target = saltIndex.target(group, i);
+                if (saltIndex.isCracked(target)) {
+                    continue;
+                }
+                long matches = bitsliced.matchMask(saltIndex.targetHash(group, i)) & lanes;
+                if (matches != 0) {
+                    handler.cracked(target, positions[Long.numberOfTrailingZeros(matches)]);
+                }
+            }
+        }
+        return crypts;
+    }
+
+    private long flushVector() {
+        for (int lane = 0; lane < size; lane++) {
+            vector.setKey(lane, keys[lane]);
+        }
+        long crypts = 0;
+
+        for (int group = 0; group < saltIndex.groupCount(); group++) {
+            if (saltIndex.isExhausted(group)) {
+                continue;
+            }
+            vector.crypt(saltIndex.saltBits(group));
+            crypts += size;
+            if (saltIndex.targetCount(group) >= LOOKUP_TARGETS) {
+                vector.hashes(hashes);
+                lookUp(group);
+                continue;
+            }
+            for (int i = 0; i < saltIndex.targetCount(group); i++) {
+                int target = saltIndex.target(group, i);
+                if (saltIndex.isCracked(target)) {
+                    continue;
+                }
+                int lane = vector.firstMatch(saltIndex.targetHash(group, i), size);
+                if (lane >= 0) {
+                    handler.cracked(target, positions[lane]);
+                }
+            }
+        }
+        return crypts;
+    }
+
+    // Looks up each queued lane's hash, as extracted into hashes, among the group's targets.
+    private void lookUp(int group) {
+        for (int lane = 0; lane < size; lane++) {
+            int target = saltIndex.findTarget(group, hashes[lane]);
+            if (target >= 0 && !saltIndex.isCracked(target)) {
+                handler.cracked(target, positions[lane]);
+            }
+        }
+    }
+
+    private long flushScalar() {
+        long crypts = 0;
+        for (int group = 0; group < saltIndex.groupCount(); group++) {
+            int saltBits = saltIndex.saltBits(group);
+            for (int lane = 0; lane < size; lane++) {
+                if (saltIndex.isExhausted(group)) {
+                    break;
+                }
+                long raw = jcrypt.cryptRaw(saltBits, keys[lane], scratch);
+                int target = saltIndex.findTarget(group, raw);
+                crypts++;
+                if (target >= 0) {
+                    handler.cracked(target, positions[lane]);
+                }
+            }
+        }
+        return crypts;
+    }
+}
@@ -0,0 +1,894 @@
+package cracker;
+
+/**
+ * Bitsliced traditional DES crypt(3).
+ *
+ * Each long carries one bit position for 64 independent keys, and the
+ * S-boxes are evaluated as boolean gate networks, so one {@link #crypt}
+ * call hashes 64 candidate passwords under a common salt. The salt's E-box
+ * swap costs nothing here: it only changes which R slices feed each S-box.
+ *
+ * The results are exactly the raw values {@link jcrypt#cryptRaw} returns.
+ * They can be compared against a target in bitsliced form with
+ * {@link #matchMask}, which usually rejects all 64 lanes after a few bits.
+ * Instances hold working state and are not thread-safe.
+ */
+final class BitslicedCrypt {
+
+    static final int LANES = 64;
+
+    // FIPS 46-3 tables, 1-based as printed in the standard
+    private static final int[] E = {
+        32,  1,  2,  3,  4,  5,  4,  5,  6,  7,  8,  9,
+         8,  9, 10, 11, 12, 13, 12, 13, 14, 15, 16, 17,
+        16, 17, 18, 19, 20, 21, 20, 21, 22, 23, 24, 25,
+        24, 25, 26, 27, 28, 29, 28, 29, 30, 31, 32,  1,
+    };
+    private static final int[] P = {
+        16,  7, 20, 21, 29, 12, 28, 17,  1, 15, 23, 26,  5, 18, 31, 10,
+         2,  8, 24, 14, 32, 27,  3,  9, 19, 13, 30,  6, 22, 11,  4, 25,
+    };
+    private static final int[] PC1 = {
+        57, 49, 41, 33, 25, 17,  9,  1, 58, 50, 42, 34, 26, 18,
+        10,  2, 59, 51, 43, 35, 27, 19, 11,  3, 60, 52, 44, 36,
+        63, 55, 47, 39, 31, 23, 15,  7, 62, 54, 46, 38, 30, 22,
+        14,  6, 61, 53, 45, 37, 29, 21, 13,  5, 28, 20, 12,  4,
+    };
+    private static final int[] PC2 = {
+        14, 17, 11, 24,  1,  5,  3, 28, 15,  6, 21, 10,
+        23, 19, 12,  4, 26,  8, 16,  7, 27, 20, 13,  2,
+        41, 52, 31, 37, 47, 55, 30, 40, 51, 45, 33, 48,
+        44, 49, 39, 56, 34, 53, 46, 42, 50, 36, 29, 32,
+    };
+    static final int[] FP = {
+        40,  8, 48, 16, 56, 24, 64, 32, 39,  7, 47, 15, 55, 23, 63, 31,
+        38,  6, 46, 14, 54, 22, 62, 30, 37,  5, 45, 13, 53, 21, 61, 29,
+        36,  4, 44, 12, 52, 20, 60, 28, 35,  3, 43, 11, 51, 19, 59, 27,
+        34,  2, 42, 10, 50, 18, 58, 26, 33,  1, 41,  9, 49, 17, 57, 25,
+    };
+    private static final int[] SHIFTS = { 1, 1, 2, 2, 2, 2, 2, 2, 1, 2, 2, 2, 2, 2, 2, 1 };
+
+    // Per round, the canonical key bit (see jcrypt.canonicalKey) behind each S-box input
+    static final int[][] ROUND_KEY_BITS = new int[16][48];
+    // For each S-box output bit, most significant first, the L slice it is XORed into
+    static final int[] SBOX_OUT = new int[32];
+
+    static {
+        int[] cd = new int[56];
+        for (int i = 0; i < 56; i++) {
+            int bit = PC1[i] - 1; // Bit 0 is the most significant bit of key byte 0
+            cd[i] = 7 * (bit / 8) + (6 - bit % 8);
+        }
+        for (int round = 0; round < 16; round++) {
+            int[] rotated = new int[56];
+            for (int i = 0; i < 28; i++) {
+                rotated[i] = cd[(i + SHIFTS[round]) % 28];
+                rotated[28 + i] = cd[28 + (i + SHIFTS[round]) % 28];
+            }
+            cd = rotated;
+            for (int i = 0; i < 48; i++) {
+                ROUND_KEY_BITS[round][i] = cd[PC2[i] - 1];
+            }
+        }
+        for (int i = 0; i < 32; i++) {
+            SBOX_OUT[P[i] - 1] = i;
+        }
+    }
+
+    private final long[] keys = new long[56];
+    private final long[] left = new long[32];
+    private final long[] right = new long[32];
+    private final long[] output = new long[64]; // Raw output bit slices, most significant first
+    private final int[] expansion = new int[48];
+    private int expansionSalt = -1;
+
+    /** Puts a {@link jcrypt#canonicalKey} in the given lane. */
+    void setKey(int lane, long key) {
+        long bit = 1L << lane;
+        for (int i = 0; i < 56; i++) {
+            keys[i] = (keys[i] & ~bit) | (-((key >>> i) & 1) & bit);
+        }
+    }
+
+    /** Hashes all 64 lanes under the given {@link jcrypt#saltBits} value. */
+    void crypt(int saltBits) {
+        int[] e = expansion(saltBits);
+        long[] l = left;
+        long[] r = right;
+        java.util.Arrays.fill(l, 0);
+        java.util.Arrays.fill(r, 0);
+
+        for (int iteration = 0; iteration < 25; iteration++) {
+            for (int round = 0; round < 16; round += 2) {
+                feistel(r, l, ROUND_KEY_BITS[round], e);
+                feistel(l, r, ROUND_KEY_BITS[round + 1], e);
+            }
+            long[] t = l;
+            l = r;
+            r = t;
+        }
+
+        for (int i = 0; i < 64; i++) {
+            int bit = FP[i] - 1;
+            output[i] = bit < 32 ? l[bit] : r[bit - 32];
+        }
+    }
+
+    /** Returns a mask of the lanes whose last {@link #crypt} produced {@code target}. */
+    long matchMask(long target) {
+        long mismatch = 0;
+        for (int i = 0; i < 64; i++) {
+            mismatch |= output[i] ^ -((target >>> (63 - i)) & 1);
+            if (mismatch == -1L) {
+                return 0;
+            }
+        }
+        return ~mismatch;
+    }
+
+    /** Extracts one lane's hash from the last {@link #crypt}. */
+    long hash(int lane) {
+        long raw = 0;
+        for (int i = 0; i < 64; i++) {
+            raw = (raw << 1) | ((output[i] >>> lane) & 1);
+        }
+        return raw;
+    }
+
+    /**
+     * Extracts every lane's hash from the last {@link #crypt} into {@code into},
+     * lane by lane: cheaper than {@link #hash} once more than a few are needed.
+     */
+    void hashes(long[] into) {
+        for (int i = 0; i < 64; i++) {
+            into[i] = output[63 - i];
+        }
+        transpose(into, 0);
+    }
+
+    /**
+     * Transposes the 64 by 64 bit matrix in {@code rows[offset, offset + 64)}
+     * in place, so that bit j of row i swaps with bit i of row j. Each pass
+     * swaps the off-diagonal blocks of every block twice its size.
+     */
+    static void transpose(long[] rows, int offset) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int width = 32; width > 0; width >>>= 1, mask ^= mask << width) {
+            for (int row = 0; row < 64; row = ((row | width) + 1) & ~width) {
+                int low = offset + row;
+                int high = low + width;
+                long t = ((rows[low] >>> width) ^ rows[high]) & mask;
+                rows[low] ^= t << width;
+                rows[high] ^= t;
+            }
+        }
+    }
+
+    private int[] expansion(int saltBits) {
+        if (saltBits != expansionSalt) {
+            expansion(saltBits, expansion);
+            expansionSalt = saltBits;
+        }
+        return expansion;
+    }
+
+    /**
+     * Fills in the R slice behind each of the 48 S-box inputs under the salt:
+     * salt bit i swaps E-box outputs i and i + 24.
+     */
+    static void expansion(int saltBits, int[] expansion) {
+        for (int i = 0; i < 48; i++) {
+            expansion[i] = E[i] - 1;
+        }
+        for (int i = 0; i < 12; i++) {
+            if (((saltBits >>> i) & 1) != 0) {
+                int t = expansion[i];
+                expansion[i] = expansion[i + 24];
+                expansion[i + 24] = t;
+            }
+        }
+    }
+
+    private void feistel(long[] in, long[] out, int[] k, int[] e) {
+        long[] key = keys;
+        s1(in[e[0]] ^ key[k[0]], in[e[1]] ^ key[k[1]], in[e[2]] ^ key[k[2]],
+                in[e[3]] ^ key[k[3]], in[e[4]] ^ key[k[4]], in[e[5]] ^ key[k[5]],
+                out, SBOX_OUT[0], SBOX_OUT[1], SBOX_OUT[2], SBOX_OUT[3]);
+        s2(in[e[6]] ^ key[k[6]], in[e[7]] ^ key[k[7]], in[e[8]] ^ key[k[8]],
+                in[e[9]] ^ key[k[9]], in[e[10]] ^ key[k[10]], in[e[11]] ^ key[k[11]],
+                out, SBOX_OUT[4], SBOX_OUT[5], SBOX_OUT[6], SBOX_OUT[7]);
+        s3(in[e[12]] ^ key[k[12]], in[e[13]] ^ key[k[13]], in[e[14]] ^ key[k[14]],
+                in[e[15]] ^ key[k[15]], in[e[16]] ^ key[k[16]], in[e[17]] ^ key[k[17]],
+                out, SBOX_OUT[8], SBOX_OUT[9], SBOX_OUT[10], SBOX_OUT[11]);
+        s4(in[e[18]] ^ key[k[18]], in[e[19]] ^ key[k[19]], in[e[20]] ^ key[k[20]],
+                in[e[21]] ^ key[k[21]], in[e[22]] ^ key[k[22]], in[e[23]] ^ key[k[23]],
+                out, SBOX_OUT[12], SBOX_OUT[13], SBOX_OUT[14], SBOX_OUT[15]);
+        s5(in[e[24]] ^ key[k[24]], in[e[25]] ^ key[k[25]], in[e[26]] ^ key[k[26]],
+                in[e[27]] ^ key[k[27]], in[e[28]] ^ key[k[28]], in[e[29]] ^ key[k[29]],
+                out, SBOX_OUT[16], SBOX_OUT[17], SBOX_OUT[18], SBOX_OUT[19]);
+        s6(in[e[30]] ^ key[k[30]], in[e[31]] ^ key[k[31]], in[e[32]] ^ key[k[32]],
+                in[e[33]] ^ key[k[33]], in[e[34]] ^ key[k[34]], in[e[35]] ^ key[k[35]],
+                out, SBOX_OUT[20], SBOX_OUT[21], SBOX_OUT[22], SBOX_OUT[23]);
+        s7(in[e[36]] ^ key[k[36]], in[e[37]] ^ key[k[37]], in[e[38]] ^ key[k[38]],
+                in[e[39]] ^ key[k[39]], in[e[40]] ^ key[k[40]], in[e[41]] ^ key[k[41]],
+                out, SBOX_OUT[24], SBOX_OUT[25], SBOX_OUT[26], SBOX_OUT[27]);
+        s8(in[e[42]] ^ key[k[42]], in[e[43]] ^ key[k[43]], in[e[44]] ^ key[k[44]],
+                in[e[45]] ^ key[k[45]], in[e[46]] ^ key[k[46]], in[e[47]] ^ key[k[47]],
+                out, SBOX_OUT[28], SBOX_OUT[29], SBOX_OUT[30], SBOX_OUT[31]);
+    }
+
+    /*
+     * S-box gate networks. Inputs a1..a6 are the six S-box input bits in
+     * FIPS order (a1 and a6 select the row); each output is XORed into its
+     * slice of the other half. The networks were derived from the S-box
+     * tables by Shannon decomposition, choosing per S-box the variable
+     * order that needs the fewest gates.
+     */
+    private static void s1(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a5;
+        long x2 = a2 ^ x1;
+        long x3 = ~a2;
+        long x4 = x2 ^ (a3 & x3);
+        long x5 = x2 ^ (a3 & a5);
+        long x6 = x4 ^ x5;
+        long x7 = x4 ^ (a4 & x6);
+        long x8 = ~x4;
+        long x9 = a2 ^ (a3 & x1);
+        long x10 = x8 ^ x9;
+        long x11 = x8 ^ (a4 & x10);
+        long x12 = x7 ^ x11;
+        long x13 = x7 ^ (a6 & x12);
+        long x14 = x3 | x1;
+        long x15 = a5 & x3;
+        long x16 = x14 ^ (a3 & x1);
+        long x17 = x9 ^ x16;
+        long x18 = x9 ^ (a4 & x17);
+        long x19 = ~x2;
+        long x20 = ~x15;
+        long x21 = x17 ^ (a3 & x20);
+        long x22 = ~x14;
+        long x23 = x2 ^ x22;
+        long x24 = x2 ^ (a3 & x23);
+        long x25 = x21 ^ x24;
+        long x26 = x21 ^ (a4 & x25);
+        long x27 = x18 ^ x26;
+        long x28 = x18 ^ (a6 & x27);
+        long x29 = x13 ^ x28;
+        long x30 = x13 ^ (a1 & x29);
+        long x31 = ~x9;
+        long x32 = x20 ^ (a3 & x1);
+        long x33 = ~x23;
+        long x34 = x31 ^ (a4 & x33);
+        long x35 = a5 ^ (a3 & x3);
+        long x36 = x14 ^ (a3 & x19);
+        long x37 = x35 ^ (a4 & x32);
+        long x38 = x34 ^ x37;
+        long x39 = x34 ^ (a6 & x38);
+        long x40 = x20 ^ (a3 & x33);
+        long x41 = ~x17;
+        long x42 = x2 ^ (a3 & x20);
+        long x43 = x40 ^ x42;
+        long x44 = x40 ^ (a4 & x43);
+        long x45 = a4 ^ x36;
+        long x46 = x44 ^ x45;
+        long x47 = x44 ^ (a6 & x46);
+        long x48 = x39 ^ x47;
+        long x49 = x39 ^ (a1 & x48);
+        long x50 = ~x21;
+        long x51 = x40 ^ (a4 & x4);
+        long x52 = x33 ^ (a3 & x20);
+        long x53 = x52 ^ (a4 & x14);
+        long x54 = x51 ^ x53;
+        long x55 = x51 ^ (a6 & x54);
+        long x56 = x41 ^ (a3 & a5);
+        long x57 = x56 ^ (a4 & x20);
+        long x58 = x33 ^ (a3 & x22);
+        long x59 = x42 ^ (a4 & x16);
+        long x60 = x57 ^ x59;
+        long x61 = x57 ^ (a6 & x60);
+        long x62 = x55 ^ x61;
+        long x63 = x55 ^ (a1 & x62);
+        long x64 = x3 ^ (a3 & a5);
+        long x65 = x56 ^ (a4 & x14);
+        long x66 = ~x40;
+        long x67 = x2 ^ (a3 & x33);
+        long x68 = x66 ^ (a4 & x17);
+        long x69 = x65 ^ x68;
+        long x70 = x65 ^ (a6 & x69);
+        long x71 = ~x64;
+        long x72 = x8 ^ x71;
+        long x73 = x8 ^ (a4 & x72);
+        long x74 = a3 ^ x20;
+        long x75 = a3 ^ x41;
+        long x76 = x74 ^ (a4 & x2);
+        long x77 = x73 ^ x76;
+        long x78 = x73 ^ (a6 & x77);
+        long x79 = x70 ^ x78;
+        long x80 = x70 ^ (a1 & x79);
+        out[o1] ^= x30;
+        out[o2] ^= x49;
+        out[o3] ^= x63;
+        out[o4] ^= x80;
+    }
+
+    private static void s2(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a2;
+        long x2 = ~a4;
+        long x3 = x1 | x2;
+        long x4 = a2 & x2;
+        long x5 = x3 ^ (a3 & x1);
+        long x6 = ~x3;
+        long x7 = a3 ^ x6;
+        long x8 = x5 ^ x7;
+        long x9 = x5 ^ (a1 & x8);
+        long x10 = a3 ^ x4;
+        long x11 = ~x7;
+        long x12 = x10 ^ (a1 & x1);
+        long x13 = x9 ^ x12;
+        long x14 = x9 ^ (a6 & x13);
+        long x15 = a2 ^ x2;
+        long x16 = a4 ^ (a3 & x1);
+        long x17 = x16 ^ x11;
+        long x18 = x16 ^ (a1 & x17);
+        long x19 = a3 ^ x15;
+        long x20 = x19 ^ (a1 & a3);
+        long x21 = x18 ^ x20;
+        long x22 = x18 ^ (a6 & x21);
+        long x23 = x14 ^ x22;
+        long x24 = x14 ^ (a5 & x23);
+        long x25 = x2 & x1;
+        long x26 = a2 | x2;
+        long x27 = x25 ^ (a3 & a2);
+        long x28 = a1 ^ x27;
+        long x29 = ~x15;
+        long x30 = x29 ^ (a3 & x1);
+        long x31 = a1 ^ x30;
+        long x32 = x28 ^ (a6 & x11);
+        long x33 = ~x27;
+        long x34 = x33 ^ x15;
+        long x35 = x33 ^ (a1 & x34);
+        long x36 = x1 ^ (a3 & x15);
+        long x37 = a1 ^ x36;
+        long x38 = x35 ^ x37;
+        long x39 = x35 ^ (a6 & x38);
+        long x40 = x32 ^ x39;
+        long x41 = x32 ^ (a5 & x40);
+        long x42 = x15 ^ (a3 & a4);
+        long x43 = ~x26;
+        long x44 = ~x4;
+        long x45 = x43 ^ (a3 & x44);
+        long x46 = x42 ^ x45;
+        long x47 = x42 ^ (a1 & x46);
+        long x48 = ~x25;
+        long x49 = x48 ^ (a3 & x3);
+        long x50 = x27 ^ x49;
+        long x51 = x27 ^ (a1 & x50);
+        long x52 = x47 ^ x51;
+        long x53 = x47 ^ (a6 & x52);
+        long x54 = ~x19;
+        long x55 = x44 ^ (a3 & x3);
+        long x56 = x54 ^ x55;
+        long x57 = x54 ^ (a1 & x56);
+        long x58 = a4 ^ (a3 & x15);
+        long x59 = ~x55;
+        long x60 = x58 ^ x59;
+        long x61 = x58 ^ (a1 & x60);
+        long x62 = x57 ^ x61;
+        long x63 = x57 ^ (a6 & x62);
+        long x64 = x53 ^ x63;
+        long x65 = x53 ^ (a5 & x64);
+        long x66 = a3 ^ x2;
+        long x67 = x66 ^ x29;
+        long x68 = x66 ^ (a1 & x67);
+        long x69 = x15 ^ x17;
+        long x70 = x15 ^ (a1 & x69);
+        long x71 = x68 ^ x70;
+        long x72 = x68 ^ (a6 & x71);
+        long x73 = a1 ^ x17;
+        long x74 = a3 ^ x43;
+        long x75 = x67 ^ (a1 & x25);
+        long x76 = x73 ^ x75;
+        long x77 = x73 ^ (a6 & x76);
+        long x78 = x72 ^ x77;
+        long x79 = x72 ^ (a5 & x78);
+        out[o1] ^= x24;
+        out[o2] ^= x41;
+        out[o3] ^= x65;
+        out[o4] ^= x79;
+    }
+
+    private static void s3(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a5;
+        long x2 = ~a3;
+        long x3 = x1 & x2;
+        long x4 = a3 ^ a5;
+        long x5 = x3 ^ x4;
+        long x6 = x3 ^ (a2 & x5);
+        long x7 = ~x4;
+        long x8 = ~x3;
+        long x9 = x5 ^ (a2 & x8);
+        long x10 = x6 ^ x9;
+        long x11 = x6 ^ (a4 & x10);
+        long x12 = a2 ^ x3;
+        long x13 = a5 ^ (a2 & a3);
+        long x14 = x12 ^ x13;
+        long x15 = x12 ^ (a4 & x14);
+        long x16 = x11 ^ x15;
+        long x17 = x11 ^ (a6 & x16);
+        long x18 = a3 | x1;
+        long x19 = x18 ^ x7;
+        long x20 = x18 ^ (a2 & x19);
+        long x21 = a4 ^ x20;
+        long x22 = a4 ^ x13;
+        long x23 = x21 ^ x22;
+        long x24 = x21 ^ (a6 & x23);
+        long x25 = x17 ^ x24;
+        long x26 = x17 ^ (a1 & x25);
+        long x27 = x19 ^ (a2 & x8);
+        long x28 = x8 ^ (a2 & x18);
+        long x29 = x27 ^ x28;
+        long x30 = x27 ^ (a4 & x29);
+        long x31 = ~x19;
+        long x32 = a2 ^ x31;
+        long x33 = ~x14;
+        long x34 = x32 ^ x33;
+        long x35 = x32 ^ (a4 & x34);
+        long x36 = x30 ^ x35;
+        long x37 = x30 ^ (a6 & x36);
+        long x38 = x32 ^ (a4 & a5);
+        long x39 = ~x32;
+        long x40 = x39 ^ x7;
+        long x41 = x39 ^ (a4 & x40);
+        long x42 = x38 ^ x41;
+        long x43 = x38 ^ (a6 & x42);
+        long x44 = x37 ^ x43;
+        long x45 = x37 ^ (a1 & x44);
+        long x46 = x18 ^ (a2 & x7);
+        long x47 = x46 ^ x4;
+        long x48 = x46 ^ (a4 & x47);
+        long x49 = a2 ^ x4;
+        long x50 = a3 ^ (a2 & a5);
+        long x51 = x49 ^ x50;
+        long x52 = x49 ^ (a4 & x51);
+        long x53 = x48 ^ x52;
+        long x54 = x48 ^ (a6 & x53);
+        long x55 = ~x47;
+        long x56 = x29 ^ x55;
+        long x57 = x29 ^ (a4 & x56);
+        long x58 = ~x5;
+        long x59 = a2 ^ x58;
+        long x60 = ~x12;
+        long x61 = x4 ^ (a4 & x60);
+        long x62 = x57 ^ x61;
+        long x63 = x57 ^ (a6 & x62);
+        long x64 = x54 ^ x63;
+        long x65 = x54 ^ (a1 & x64);
+        long x66 = x59 ^ (a4 & x1);
+        long x67 = a6 ^ x66;
+        long x68 = x7 ^ (a2 & x8);
+        long x69 = a4 ^ x68;
+        long x70 = x7 ^ (a2 & x5);
+        long x71 = ~x18;
+        long x72 = x7 ^ (a2 & x31);
+        long x73 = ~x34;
+        long x74 = x70 ^ (a4 & x73);
+        long x75 = x69 ^ x74;
+        long x76 = x69 ^ (a6 & x75);
+        long x77 = x67 ^ x76;
+        long x78 = x67 ^ (a1 & x77);
+        out[o1] ^= x26;
+        out[o2] ^= x45;
+        out[o3] ^= x65;
+        out[o4] ^= x78;
+    }
+
+    private static void s4(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a2;
+        long x2 = a5 & x1;
+        long x3 = x2 ^ a2;
+        long x4 = x2 ^ (a3 & x3);
+        long x5 = ~a5;
+        long x6 = x1 | a5;
+        long x7 = x5 ^ (a3 & x3);
+        long x8 = x4 ^ x7;
+        long x9 = x4 ^ (a4 & x8);
+        long x10 = x5 ^ x1;
+        long x11 = x5 ^ (a3 & x10);
+        long x12 = ~x10;
+        long x13 = a3 ^ x12;
+        long x14 = x11 ^ x13;
+        long x15 = x11 ^ (a4 & x14);
+        long x16 = x9 ^ x15;
+        long x17 = x9 ^ (a1 & x16);
+        long x18 = ~x14;
+        long x19 = x12 ^ (a3 & x5);
+        long x20 = x18 ^ x19;
+        long x21 = x18 ^ (a4 & x20);
+        long x22 = x10 ^ (a3 & x1);
+        long x23 = ~x8;
+        long x24 = x23 ^ (a3 & x1);
+        long x25 = x22 ^ (a4 & x3);
+        long x26 = x21 ^ x25;
+        long x27 = x21 ^ (a1 & x26);
+        long x28 = x17 ^ x27;
+        long x29 = x17 ^ (a6 & x28);
+        long x30 = ~x17;
+        long x31 = ~x28;
+        long x32 = x27 ^ (a6 & x31);
+        long x33 = ~x11;
+        long x34 = x13 ^ (a4 & x33);
+        long x35 = ~x2;
+        long x36 = x8 ^ (a3 & x35);
+        long x37 = ~x3;
+        long x38 = a2 ^ (a3 & x35);
+        long x39 = x36 ^ (a4 & x6);
+        long x40 = x34 ^ x39;
+        long x41 = x34 ^ (a1 & x40);
+        long x42 = x5 ^ (a3 & x1);
+        long x43 = x24 ^ (a4 & x35);
+        long x44 = x1 ^ (a3 & a5);
+        long x45 = x44 ^ x33;
+        long x46 = x44 ^ (a4 & x45);
+        long x47 = x43 ^ x46;
+        long x48 = x43 ^ (a1 & x47);
+        long x49 = x41 ^ x48;
+        long x50 = x41 ^ (a6 & x49);
+        long x51 = ~x48;
+        long x52 = ~x49;
+        long x53 = x51 ^ (a6 & x52);
+        out[o1] ^= x29;
+        out[o2] ^= x32;
+        out[o3] ^= x50;
+        out[o4] ^= x53;
+    }
+
+    private static void s5(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a1;
+        long x2 = a5 & x1;
+        long x3 = a2 ^ x2;
+        long x4 = a1 | a5;
+        long x5 = a2 ^ x4;
+        long x6 = x3 ^ (a3 & a1);
+        long x7 = ~a2;
+        long x8 = a1 & a5;
+        long x9 = x7 | x8;
+        long x10 = a1 ^ a5;
+        long x11 = x8 ^ (a2 & x4);
+        long x12 = x9 ^ x11;
+        long x13 = x9 ^ (a3 & x12);
+        long x14 = x6 ^ x13;
+        long x15 = x6 ^ (a6 & x14);
+        long x16 = ~x10;
+        long x17 = x1 | a5;
+        long x18 = x16 ^ (a2 & x2);
+        long x19 = x11 ^ x18;
+        long x20 = x11 ^ (a3 & x19);
+        long x21 = ~x2;
+        long x22 = x10 ^ (a2 & x21);
+        long x23 = ~x4;
+        long x24 = x16 ^ (a2 & x8);
+        long x25 = x22 ^ x24;
+        long x26 = x22 ^ (a3 & x25);
+        long x27 = x20 ^ x26;
+        long x28 = x20 ^ (a6 & x27);
+        long x29 = x15 ^ x28;
+        long x30 = x15 ^ (a4 & x29);
+        long x31 = ~a5;
+        long x32 = x16 ^ (a2 & a1);
+        long x33 = x10 ^ x32;
+        long x34 = x10 ^ (a3 & x33);
+        long x35 = x17 ^ (a2 & x1);
+        long x36 = x19 ^ x35;
+        long x37 = x19 ^ (a3 & x36);
+        long x38 = x34 ^ x37;
+        long x39 = x34 ^ (a6 & x38);
+        long x40 = ~x5;
+        long x41 = a2 ^ x10;
+        long x42 = ~x8;
+        long x43 = x40 ^ (a3 & x42);
+        long x44 = a6 ^ x43;
+        long x45 = x39 ^ x44;
+        long x46 = x39 ^ (a4 & x45);
+        long x47 = ~x22;
+        long x48 = x42 ^ (a2 & x17);
+        long x49 = x47 ^ x48;
+        long x50 = x47 ^ (a3 & x49);
+        long x51 = x48 ^ x36;
+        long x52 = x48 ^ (a3 & x51);
+        long x53 = x50 ^ x52;
+        long x54 = x50 ^ (a6 & x53);
+        long x55 = ~x48;
+        long x56 = ~x11;
+        long x57 = x55 ^ (a3 & x25);
+        long x58 = x16 ^ (a2 & a5);
+        long x59 = ~x17;
+        long x60 = x59 ^ (a2 & x4);
+        long x61 = x58 ^ (a3 & x51);
+        long x62 = x57 ^ x61;
+        long x63 = x57 ^ (a6 & x62);
+        long x64 = x54 ^ x63;
+        long x65 = x54 ^ (a4 & x64);
+        long x66 = a2 & x4;
+        long x67 = x66 ^ x16;
+        long x68 = x66 ^ (a3 & x67);
+        long x69 = x10 ^ (a2 & x31);
+        long x70 = x41 ^ x69;
+        long x71 = x41 ^ (a3 & x70);
+        long x72 = x68 ^ x71;
+        long x73 = x68 ^ (a6 & x72);
+        long x74 = x4 ^ (a2 & x31);
+        long x75 = x31 ^ (a2 & x42);
+        long x76 = x74 ^ x75;
+        long x77 = x74 ^ (a3 & x76);
+        long x78 = x8 ^ (a2 & x23);
+        long x79 = x17 ^ (a2 & x42);
+        long x80 = x78 ^ x79;
+        long x81 = x78 ^ (a3 & x80);
+        long x82 = x77 ^ x81;
+        long x83 = x77 ^ (a6 & x82);
+        long x84 = x73 ^ x83;
+        long x85 = x73 ^ (a4 & x84);
+        out[o1] ^= x30;
+        out[o2] ^= x46;
+        out[o3] ^= x65;
+        out[o4] ^= x85;
+    }
+
+    private static void s6(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a2;
+        long x2 = a2 ^ a6;
+        long x3 = ~a6;
+        long x4 = x1 ^ (a5 & x3);
+        long x5 = a5 ^ x3;
+        long x6 = x4 ^ x5;
+        long x7 = x4 ^ (a3 & x6);
+        long x8 = ~x2;
+        long x9 = a6 & x1;
+        long x10 = a5 ^ x9;
+        long x11 = x8 ^ x10;
+        long x12 = x8 ^ (a3 & x11);
+        long x13 = x7 ^ x12;
+        long x14 = x7 ^ (a4 & x13);
+        long x15 = x9 ^ x3;
+        long x16 = x9 ^ (a5 & x15);
+        long x17 = x8 ^ x16;
+        long x18 = x8 ^ (a3 & x17);
+        long x19 = x3 & x1;
+        long x20 = x19 ^ (a5 & x15);
+        long x21 = ~a5;
+        long x22 = x21 | a6;
+        long x23 = x20 ^ x22;
+        long x24 = x20 ^ (a3 & x23);
+        long x25 = x18 ^ x24;
+        long x26 = x18 ^ (a4 & x25);
+        long x27 = x14 ^ x26;
+        long x28 = x14 ^ (a1 & x27);
+        long x29 = a5 ^ x8;
+        long x30 = x29 ^ (a3 & x21);
+        long x31 = ~x9;
+        long x32 = a6 ^ (a5 & x15);
+        long x33 = a3 ^ x32;
+        long x34 = x30 ^ x33;
+        long x35 = x30 ^ (a4 & x34);
+        long x36 = ~x29;
+        long x37 = ~x15;
+        long x38 = ~x19;
+        long x39 = x37 ^ (a5 & x38);
+        long x40 = x36 ^ x39;
+        long x41 = x36 ^ (a3 & x40);
+        long x42 = x1 | a6;
+        long x43 = x3 ^ (a5 & x38);
+        long x44 = a5 ^ x1;
+        long x45 = x43 ^ x44;
+        long x46 = x43 ^ (a3 & x45);
+        long x47 = x41 ^ x46;
+        long x48 = x41 ^ (a4 & x47);
+        long x49 = x35 ^ x48;
+        long x50 = x35 ^ (a1 & x49);
+        long x51 = a6 ^ (a5 & x37);
+        long x52 = x2 ^ (a5 & x42);
+        long x53 = x51 ^ x52;
+        long x54 = x51 ^ (a3 & x53);
+        long x55 = ~x42;
+        long x56 = x8 ^ (a5 & x31);
+        long x57 = x43 ^ (a3 & x53);
+        long x58 = x54 ^ x57;
+        long x59 = x54 ^ (a4 & x58);
+        long x60 = a2 ^ (a5 & x15);
+        long x61 = x8 & x21;
+        long x62 = x60 ^ (a3 & x43);
+        long x63 = x44 ^ (a3 & x43);
+        long x64 = x62 ^ x63;
+        long x65 = x62 ^ (a4 & x64);
+        long x66 = x59 ^ x65;
+        long x67 = x59 ^ (a1 & x66);
+        long x68 = a5 ^ (a3 & x1);
+        long x69 = a2 ^ (a5 & x31);
+        long x70 = x38 ^ (a5 & x37);
+        long x71 = x69 ^ x70;
+        long x72 = x69 ^ (a3 & x71);
+        long x73 = x68 ^ x72;
+        long x74 = x68 ^ (a4 & x73);
+        long x75 = ~x10;
+        long x76 = x75 ^ (a3 & x11);
+        long x77 = x8 ^ (a3 & x21);
+        long x78 = x76 ^ x77;
+        long x79 = x76 ^ (a4 & x78);
+        long x80 = x74 ^ x79;
+        long x81 = x74 ^ (a1 & x80);
+        out[o1] ^= x28;
+        out[o2] ^= x50;
+        out[o3] ^= x67;
+        out[o4] ^= x81;
+    }
+
+    private static void s7(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = a2 & a4;
+        long x2 = a5 ^ x1;
+        long x3 = ~a2;
+        long x4 = a2 ^ a4;
+        long x5 = ~a4;
+        long x6 = x3 ^ (a5 & x5);
+        long x7 = x2 ^ x6;
+        long x8 = x2 ^ (a3 & x7);
+        long x9 = a2 | a4;
+        long x10 = x4 ^ (a5 & x1);
+        long x11 = ~x4;
+        long x12 = a4 & x3;
+        long x13 = x11 ^ x12;
+        long x14 = x11 ^ (a5 & x13);
+        long x15 = x10 ^ x14;
+        long x16 = x10 ^ (a3 & x15);
+        long x17 = x8 ^ x16;
+        long x18 = x8 ^ (a1 & x17);
+        long x19 = ~x2;
+        long x20 = a3 ^ x19;
+        long x21 = ~x12;
+        long x22 = x4 ^ (a5 & x21);
+        long x23 = x4 ^ (a5 & x9);
+        long x24 = ~x15;
+        long x25 = x22 ^ (a3 & x24);
+        long x26 = x20 ^ x25;
+        long x27 = x20 ^ (a1 & x26);
+        long x28 = x18 ^ x27;
+        long x29 = x18 ^ (a6 & x28);
+        long x30 = ~x9;
+        long x31 = a5 ^ x30;
+        long x32 = a5 ^ x21;
+        long x33 = x31 ^ (a3 & a2);
+        long x34 = x33 ^ x8;
+        long x35 = x33 ^ (a1 & x34);
+        long x36 = ~x1;
+        long x37 = x21 ^ (a5 & x36);
+        long x38 = x30 ^ (a5 & x21);
+        long x39 = x37 ^ x38;
+        long x40 = x37 ^ (a3 & x39);
+        long x41 = a5 ^ x3;
+        long x42 = ~x13;
+        long x43 = a5 ^ x42;
+        long x44 = x41 ^ (a3 & x36);
+        long x45 = x40 ^ x44;
+        long x46 = x40 ^ (a1 & x45);
+        long x47 = x35 ^ x46;
+        long x48 = x35 ^ (a6 & x47);
+        long x49 = a3 ^ x22;
+        long x50 = x9 ^ (a5 & a4);
+        long x51 = x12 ^ (a5 & x11);
+        long x52 = x50 ^ x51;
+        long x53 = x50 ^ (a3 & x52);
+        long x54 = x49 ^ x53;
+        long x55 = x49 ^ (a1 & x54);
+        long x56 = ~x7;
+        long x57 = x4 ^ x56;
+        long x58 = x4 ^ (a3 & x57);
+        long x59 = x30 ^ (a5 & x1);
+        long x60 = a3 ^ x59;
+        long x61 = x58 ^ x60;
+        long x62 = x58 ^ (a1 & x61);
+        long x63 = x55 ^ x62;
+        long x64 = x55 ^ (a6 & x63);
+        long x65 = ~x6;
+        long x66 = a5 ^ x5;
+        long x67 = x65 ^ x66;
+        long x68 = x65 ^ (a3 & x67);
+        long x69 = a1 ^ x68;
+        long x70 = x13 ^ (a5 & x21);
+        long x71 = ~x37;
+        long x72 = x70 ^ (a3 & x67);
+        long x73 = ~x14;
+        long x74 = a3 ^ x73;
+        long x75 = x72 ^ x74;
+        long x76 = x72 ^ (a1 & x75);
+        long x77 = x69 ^ x76;
+        long x78 = x69 ^ (a6 & x77);
+        out[o1] ^= x29;
+        out[o2] ^= x48;
+        out[o3] ^= x64;
+        out[o4] ^= x78;
+    }
+
+    private static void s8(long a1, long a2, long a3, long a4, long a5, long a6,
+            long[] out, int o1, int o2, int o3, int o4) {
+        long x1 = ~a5;
+        long x2 = a2 | x1;
+        long x3 = a3 ^ x2;
+        long x4 = a2 ^ x1;
+        long x5 = x4 ^ (a3 & a2);
+        long x6 = x3 ^ x5;
+        long x7 = x3 ^ (a4 & x6);
+        long x8 = ~x2;
+        long x9 = ~a2;
+        long x10 = x9 | x1;
+        long x11 = x8 ^ (a3 & x1);
+        long x12 = a2 ^ (a3 & x1);
+        long x13 = x11 ^ x12;
+        long x14 = x11 ^ (a4 & x13);
+        long x15 = x7 ^ x14;
+        long x16 = x7 ^ (a1 & x15);
+        long x17 = ~x4;
+        long x18 = a3 ^ x17;
+        long x19 = x9 | a5;
+        long x20 = a3 ^ x19;
+        long x21 = x18 ^ (a4 & x2);
+        long x22 = a2 ^ (a3 & x13);
+        long x23 = x1 ^ (a3 & x13);
+        long x24 = x22 ^ (a4 & x4);
+        long x25 = x21 ^ x24;
+        long x26 = x21 ^ (a1 & x25);
+        long x27 = x16 ^ x26;
+        long x28 = x16 ^ (a6 & x27);
+        long x29 = ~x13;
+        long x30 = x29 ^ (a3 & x17);
+        long x31 = a5 ^ (a3 & x17);
+        long x32 = x30 ^ (a4 & x19);
+        long x33 = ~x18;
+        long x34 = x33 ^ x5;
+        long x35 = x33 ^ (a4 & x34);
+        long x36 = x32 ^ x35;
+        long x37 = x32 ^ (a1 & x36);
+        long x38 = ~x32;
+        long x39 = a4 ^ x12;
+        long x40 = x38 ^ x39;
+        long x41 = x38 ^ (a1 & x40);
+        long x42 = x37 ^ x41;
+        long x43 = x37 ^ (a6 & x42);
+        long x44 = x17 ^ (a3 & x1);
+        long x45 = x44 ^ (a4 & a5);
+        long x46 = x19 ^ (a3 & x10);
+        long x47 = a4 ^ x46;
+        long x48 = x45 ^ x47;
+        long x49 = x45 ^ (a1 & x48);
+        long x50 = x8 ^ (a3 & x4);
+        long x51 = x50 ^ x12;
+        long x52 = x50 ^ (a4 & x51);
+        long x53 = x1 ^ (a3 & x9);
+        long x54 = a3 ^ x9;
+        long x55 = ~x5;
+        long x56 = x53 ^ (a4 & x55);
+        long x57 = x52 ^ x56;
+        long x58 = x52 ^ (a1 & x57);
+        long x59 = x49 ^ x58;
+        long x60 = x49 ^ (a6 & x59);
+        long x61 = ~x26;
+        long x62 = x19 ^ (a3 & x4);
+        long x63 = x62 ^ (a4 & x11);
+        long x64 = x17 ^ (a3 & a5);
+        long x65 = x64 ^ x55;
+        long x66 = x64 ^ (a4 & x65);
+        long x67 = x63 ^ x66;
+        long x68 = x63 ^ (a1 & x67);
+        long x69 = x61 ^ x68;
+        long x70 = x61 ^ (a6 & x69);
+        out[o1] ^= x28;
+        out[o2] ^= x43;
+        out[o3] ^= x60;
+        out[o4] ^= x70;
+    }
+}
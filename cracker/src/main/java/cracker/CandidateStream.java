@@ -0,0 +1,211 @@
+package cracker;
+
+/**
+ * Pull-based source of guesses for one mangle level over a range of words.
+ *
+ * Walks (word, rule1, rule2) tuples in order, either every rule chain of a
+ * mangle level word by word or a single chain across the whole range, and
+ * builds each guess on demand
+ * in a reusable buffer, so memory use stays flat no matter how many guesses a
+ * word expands to. Every guess is named by its {@link #position()}, from which
+ * {@link #guessAt} rebuilds the text when a crack needs printing. Final mangles
+ * that cannot change an 8+ character word's crypt key are not generated; see
+ * {@link Mangler#canChangeKey}. Not thread-safe.
+ */
+final class CandidateStream {
+
+    private static final int NONE = -1;
+
+    private final WordList words;
+    private final Mangler mangler;
+    private final int end;
+    private final int mangleLevel;
+    private final boolean singleChain;
+    private final int chainRule1;
+    private final int chainRule2;
+    private final int orders; // Of the single chain's rules: 2 for a pair of different rules, else 1
+
+    private int word;
+    private int rule1 = NONE;
+    private int rule2 = NONE;
+    private boolean wordLoaded;
+    private boolean firstLoaded;
+    private int order;
+
+    private char[] base = new char[0];
+    private char[] first = new char[0];
+    private char[] out = new char[0];
+    private int baseLength;
+    private int firstLength;
+    private char[] guess;
+    private int guessLength;
+
+    /** Streams every rule chain of the level over {@code [from, to)}; {@code to} may exceed the list's size. */
+    CandidateStream(WordList words, Mangler mangler, int from, int to, int mangleLevel) {
+        if (mangleLevel < 0 || mangleLevel > 2) {
+            throw new IllegalArgumentException("Mangle level must be 0, 1 or 2: " + mangleLevel);
+        }
+        this.words = words;
+        this.mangler = mangler;
+        this.end = to;
+        this.mangleLevel = mangleLevel;
+        this.singleChain = false;
+        this.chainRule1 = NONE;
+        this.chainRule2 = NONE;
+        this.orders = 0;
+        this.word = from - 1;
+    }
+
+    /**
+     * Streams one rule chain across the range: each word mangled by {@code rule1}
+     * and then, unless it is -1, by {@code rule2}. Two different rules are
+     * streamed in both orders, a word's two guesses one after the other, so
+     * that the tried-keys window drops the second when the rules commute.
+     */
+    CandidateStream(WordList words, Mangler mangler, int from, int to, int rule1, int rule2) {
+        this.words = words;
+        this.mangler = mangler;
+        this.end = to;
+        this.mangleLevel = rule2 == NONE ? 1 : 2;
+        this.singleChain = true;
+        this.chainRule1 = rule1;
+        this.chainRule2 = rule2;
+        this.orders = rule2 == NONE || rule2 == rule1 ? 1 : 2;
+        this.order = orders;
+        this.word = from - 1;
+    }
+
+    /** The rule chain of a {@link #position()}: rule1 + 1 and rule2 + 1 in 16 bits each. */
+    static int chainOf(long position) {
+        return (int) position;
+    }
+
+    static int rule1Of(int chain) {
+        return (chain >>> 16) - 1;
+    }
+
+    static int rule2Of(int chain) {
+        return (chain & 0xffff) - 1;
+    }
+
+    static int chain(int rule1, int rule2) {
+        return ((rule1 + 1) << 16) | (rule2 + 1);
+    }
+
+    /** Advances to the next guess; false once the range is exhausted. */
+    boolean next() {
+        if (singleChain) {
+            return nextInChain();
+        }
+        while (true) {
+            if (mangleLevel == 0) {
+                if (!loadNextWord()) return false;
+                guess = base;
+                guessLength = baseLength;
+                return true;
+            }
+
+            if (mangleLevel == 2 && firstLoaded && rule2 + 1 < mangler.ruleCount()) {
+                rule2++;
+                if (!mangler.canChangeKey(rule2, firstLength)) continue;
+                guessLength = mangler.apply(rule2, first, firstLength, out);
+                if (guessLength == 0) continue;
+                guess = out;
+                return true;
+            }
+
+            if (!wordLoaded || rule1 + 1 >= mangler.ruleCount()) {
+                if (!loadNextWord()) return false;
+                rule1 = NONE;
+            }
+            rule1++;
+
+            if (mangleLevel == 1) {
+                if (!mangler.canChangeKey(rule1, baseLength)) continue;
+                guessLength = mangler.apply(rule1, base, baseLength, out);
+                if (guessLength == 0) continue;
+                guess = out;
+                return true;
+            }
+
+            // Level 2: this first mangle is an intermediate, so every rule applies
+            firstLength = mangler.apply(rule1, base, baseLength, first);
+            firstLoaded = firstLength > 0;
+            rule2 = NONE;
+        }
+    }
+
+    private boolean nextInChain() {
+        while (true) {
+            if (order == orders) {
+                if (!loadNextWord()) return false;
+                order = 0;
+            }
+            boolean reversed = order++ == 1;
+            rule1 = reversed ? chainRule2 : chainRule1;
+            rule2 = reversed ? chainRule1 : chainRule2;
+            if (rule2 == NONE) {
+                if (!mangler.canChangeKey(rule1, baseLength)) continue;
+                guessLength = mangler.apply(rule1, base, baseLength, out);
+            } else {
+                firstLength = mangler.apply(rule1, base, baseLength, first);
+                if (firstLength == 0 || !mangler.canChangeKey(rule2, firstLength)) continue;
+                guessLength = mangler.apply(rule2, first, firstLength, out);
+            }
+            if (guessLength == 0) continue;
+            guess = out;
+            return true;
+        }
+    }
+
+    /** The {@link jcrypt#canonicalKey} of the current guess. */
+    long key() {
+        long key = 0;
+        for (int i = 0; i < 8 && i < guessLength; i++) {
+            key |= (long) (guess[i] & 0x7f) << (7 * i);
+        }
+        return key;
+    }
+
+    /** Identifies the current guess: word index in the high 32 bits, its rule chain in the low 32. */
+    long position() {
+        return ((long) word << 32) | (chain(rule1, rule2) & 0xffffffffL);
+    }
+
+    /** Rebuilds the text of the guess at a {@link #position()} of this stream. */
+    String guessAt(long position) {
+        return guessAt(words, mangler, position);
+    }
+
+    /** Rebuilds the text of the guess at a {@link #position()} of any stream over {@code words} and these rules. */
+    static String guessAt(WordList words, Mangler mangler, long position) {
+        String text = words.get((int) (position >>> 32));
+        int chain = chainOf(position);
+        for (int rule : new int[] { rule1Of(chain), rule2Of(chain) }) {
+            if (rule == NONE) break;
+            char[] mangled = new char[mangler.maxOutput(text.length())];
+            int length = mangler.apply(rule, text.toCharArray(), text.length(), mangled);
+            text = new String(mangled, 0, length);
+        }
+        return text;
+    }
+
+    private boolean loadNextWord() {
+        firstLoaded = false;
+        while (++word < end && words.await(word)) {
+            int maxLength = words.maxLength(word);
+            if (base.length < maxLength) {
+                base = new char[maxLength];
+                first = new char[mangler.maxOutput(maxLength)];
+                out = new char[mangler.maxOutput(first.length)];
+            }
+            baseLength = words.getChars(word, base);
+            if (baseLength == 0) continue;
+
+            wordLoaded = true;
+            return true;
+        }
+        wordLoaded = false;
+        return false;
+    }
+}
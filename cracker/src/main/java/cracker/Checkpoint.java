@@ -0,0 +1,292 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Progress of a cracking run: the current stage, the dictionary ranges each
+ * rule chain has finished in it, the hashes cracked so far and the
+ * {@link RuleOrder} statistics.
+ *
+ * Workers report a range with {@link #done} only once every guess in it has
+ * been verified, so a snapshot never claims work that was lost. Snapshots are
+ * written by a background timer, outside the hash loop, to a temporary file
+ * that is synced and then atomically moved over the checkpoint, so a crash at
+ * any moment leaves either the previous checkpoint or the new one. Without a
+ * file, progress is tracked but never written. Thread-safe.
+ */
+final class Checkpoint {
+
+    static final int USERNAMES = 1;
+    static final int MANGLED_USERNAMES = 2;
+    static final int PERSONAL_WORDS = 3;
+    static final int DICTIONARY = 4; // Plus the mangle level
+    static final int DONE = DICTIONARY + 3;
+    private static final int STAGES_VERSION = 3;
+
+    /** Chain id under which word-by-word stages record their ranges; see {@link CandidateStream#chainOf}. */
+    static final int ALL_CHAINS = 0;
+
+    // Words per range that workers verify and report at once: a few thousand guesses at mangle levels 0, 1 and 2,
+    // and about a thousand for a single rule chain
+    static final int[] RANGE_WORDS = { 4096, 64, 2 };
+    static final int CHAIN_RANGE_WORDS = 1024;
+
+    private final Path file;
+    private final Supplier<String> fingerprintSource;
+    private String fingerprint;
+    private final Map<String, String> cracked = new LinkedHashMap<>();           // hash -> guess
+    private final Map<Integer, TreeMap<Integer, Integer>> done = new HashMap<>(); // chain -> from -> to
+    private final Object saveLock = new Object();
+    private int stage = USERNAMES;
+    private long[] savedRuleStats;
+    private RuleOrder ruleOrder;
+    private ScheduledExecutorService timer;
+
+    /**
+     * Starts a fresh run; {@code file} may be null to keep progress in memory
+     * only. The fingerprint is only taken, once, when a snapshot is first written.
+     */
+    Checkpoint(Path file, Supplier<String> fingerprint) {
+        this.file = file;
+        this.fingerprintSource = fingerprint;
+    }
+
+    /**
+     * Loads the checkpoint of an interrupted run. Fails if the file is damaged
+     * or was written for other inputs or options.
+     */
+    static Checkpoint resume(Path file, Supplier<String> fingerprint) throws IOException {
+        Checkpoint checkpoint = new Checkpoint(file, fingerprint);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals("fingerprint " + checkpoint.fingerprint())) {
+            throw new IOException(file + " was written for different input files or options");
+        }
+        Map<Integer, Long> stats = new HashMap<>();
+        try {
+            for (String line : lines.subList(1, lines.size())) {
+                String[] fields = line.split(" ", -1);
+                switch (fields[0]) {
+                    case "stage":
+                        checkpoint.stage = Integer.parseInt(fields[1]);
+                        break;
+                    case "cracked":
+                        String guess = new String(Base64.getDecoder().decode(fields[2]), StandardCharsets.UTF_8);
+                        checkpoint.cracked.put(fields[1], guess);
+                        break;
+                    case "done":
+                        checkpoint.done(Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                                Integer.parseInt(fields[3]));
+                        break;
+                    case "stat":
+                        stats.put(Integer.parseInt(fields[1]), Long.parseLong(fields[2]));
+                        break;
+                    case "end":
+                        checkpoint.savedRuleStats = new long[Integer.parseInt(fields[1])];
+                        stats.forEach((i, value) -> checkpoint.savedRuleStats[i] = value);
+                        return checkpoint;
+                    default:
+                        throw new IOException("unknown entry '" + fields[0] + "'");
+                }
+            }
+        } catch (RuntimeException err) {
+            throw new IOException(file + " is damaged: " + err.getMessage(), err);
+        }
+        throw new IOException(file + " is truncated");
+    }
+
+    /**
+     * Identifies a run by program, dictionary, hashes and options, so a checkpoint is only resumed by its own run. The
+     * leading number changes whenever the stages do, so older checkpoints are turned down rather than misread.
+     */
+    static String fingerprint(String program, WordList dictionary, List<String> hashes, String options) {
+        CRC32 crc = new CRC32();
+        for (String hash : hashes) {
+            crc.update(hash.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return STAGES_VERSION + "/" + program + "/" + dictionary.size() + "/"
+                + Long.toHexString(dictionary.checksum()) + "/" + hashes.size() + "/" + Long.toHexString(crc.getValue())
+                + "/" + options.replace(' ', '_');
+    }
+
+    private synchronized String fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = fingerprintSource.get();
+        }
+        return fingerprint;
+    }
+
+    synchronized int stage() {
+        return stage;
+    }
+
+    /** Moves on to a later stage, forgetting the finished ranges of the one before. */
+    synchronized void startStage(int newStage) {
+        if (newStage != stage) {
+            stage = newStage;
+            done.clear();
+        }
+    }
+
+    /** Hashes cracked by the interrupted run, in the order they fell, with their passwords. */
+    synchronized Map<String, String> cracked() {
+        return new LinkedHashMap<>(cracked);
+    }
+
+    synchronized void cracked(String hash, String guess) {
+        cracked.put(hash, guess);
+    }
+
+    /** Records that every guess of the chain over dictionary words {@code [from, to)} has been verified. */
+    synchronized void done(int chain, int from, int to) {
+        TreeMap<Integer, Integer> ranges = done.computeIfAbsent(chain, c -> new TreeMap<>());
+        Map.Entry<Integer, Integer> before = ranges.floorEntry(from);
+        if (before != null && before.getValue() >= from) {
+            from = before.getKey();
+            to = Math.max(to, before.getValue());
+        }
+        Map.Entry<Integer, Integer> after;
+        while ((after = ranges.ceilingEntry(from)) != null && after.getKey() <= to) {
+            to = Math.max(to, after.getValue());
+            ranges.remove(after.getKey());
+        }
+        ranges.put(from, to);
+    }
+
+    /** The parts of {@code [from, to)} the chain has not finished, as from/to pairs. */
+    synchronized int[] remaining(int chain, int from, int to) {
+        TreeMap<Integer, Integer> ranges = done.get(chain);
+        if (ranges == null) {
+            return new int[] { from, to };
+        }
+        List<Integer> gaps = new ArrayList<>();
+        int cursor = from;
+        Map.Entry<Integer, Integer> before = ranges.floorEntry(from);
+        if (before != null) {
+            cursor = Math.max(cursor, before.getValue());
+        }
+        for (Map.Entry<Integer, Integer> range : ranges.subMap(from, false, to, false).entrySet()) {
+            if (range.getKey() > cursor) {
+                gaps.add(cursor);
+                gaps.add(range.getKey());
+            }
+            cursor = Math.max(cursor, range.getValue());
+        }
+        if (cursor < to) {
+            gaps.add(cursor);
+            gaps.add(to);
+        }
+        return gaps.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Saves the order's statistics with each snapshot, restoring any the checkpoint was loaded with. */
+    void track(RuleOrder order) {
+        long[] restored;
+        synchronized (this) {
+            ruleOrder = order;
+            restored = savedRuleStats;
+        }
+        if (restored != null) {
+            order.restoreStats(restored);
+        }
+    }
+
+    /**
+     * Saves a snapshot every {@code intervalSeconds} from a background thread,
+     * and once more when the JVM shuts down.
+     */
+    void startAutosave(long intervalSeconds) {
+        if (file == null) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::trySave, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::trySave, "checkpoint-on-exit"));
+    }
+
+    /** Writes a snapshot now. */
+    void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        RuleOrder order;
+        long[] ruleStats;
+        synchronized (this) {
+            order = ruleOrder;
+            ruleStats = savedRuleStats;
+        }
+        if (order != null) {
+            ruleStats = order.stats();
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append("fingerprint ").append(fingerprint()).append('\n');
+        synchronized (this) {
+            text.append("stage ").append(stage).append('\n');
+            Base64.Encoder base64 = Base64.getEncoder();
+            cracked.forEach((hash, guess) -> text.append("cracked ").append(hash).append(' ')
+                    .append(base64.encodeToString(guess.getBytes(StandardCharsets.UTF_8))).append('\n'));
+            done.forEach((chain, ranges) -> ranges.forEach((from, to) -> text.append("done ").append(chain)
+                    .append(' ').append(from).append(' ').append(to).append('\n')));
+        }
+        int statCount = ruleStats == null ? 0 : ruleStats.length;
+        for (int i = 0; i < statCount; i++) {
+            if (ruleStats[i] != 0) {
+                text.append("stat ").append(i).append(' ').append(ruleStats[i]).append('\n');
+            }
+        }
+        text.append("end ").append(statCount).append('\n');
+
+        synchronized (saveLock) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Stops the timer and writes a last snapshot. */
+    void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        trySave();
+    }
+
+    private void trySave() {
+        try {
+            save();
+        } catch (IOException err) {
+            System.err.println("Warning: Could not write checkpoint " + file + ": " + err.getMessage());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package cracker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A dictionary compiled by {@link #compile} into a binary file that opens
+ * without reading or scanning it.
+ *
+ * Words are grouped into one bucket per length in bytes, shortest first, and
+ * stored back to back without separators, so a word's offset follows from its
+ * index and the bucket table in the header alone. Duplicates and empty lines
+ * are dropped; the rest keep their dictionary order within their bucket. Words
+ * are kept whole rather than cut to the eight characters crypt reads: the
+ * mangle rules reverse, reflect and shift them, which brings later characters
+ * into the key. Thread-safe.
+ *
+ * File layout, big-endian: the magic number, a CRC-32 of the words each
+ * followed by {@code \n}, the bucket count, then a length and word count per
+ * bucket, then the words.
+ */
+final class CompiledWordList implements WordList {
+
+    private static final long MAGIC = 0x5057444943540001L; // "PWDICT", format 1
+    private static final int HEADER_BYTES = 8 + 8 + 4;
+    private static final int BUCKET_BYTES = 4 + 4;
+
+    private final MappedByteBuffer[] segments;
+    private final long checksum;
+    private final int[] first;  // Index of each bucket's first word
+    private final int[] length; // Length in bytes of each bucket's words
+    private final long[] offset;
+    private final int size;
+
+    private CompiledWordList(MappedByteBuffer[] segments, long checksum, int[] first, int[] length, long[] offset,
+            int size) {
+        this.segments = segments;
+        this.checksum = checksum;
+        this.first = first;
+        this.length = length;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /** Whether the file starts like a compiled dictionary. */
+    static boolean isCompiled(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(8);
+            return magic.length == 8 && ByteBuffer.wrap(magic).getLong() == MAGIC;
+        }
+    }
+
+    /** Maps a compiled dictionary. Fails if the file is not one or was cut short. */
+    static CompiledWordList open(Path file) throws IOException {
+        MappedByteBuffer[] segments;
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segments = MappedWordList.map(channel);
+            fileSize = channel.size();
+        }
+        if (fileSize < HEADER_BYTES || segments[0].getLong(0) != MAGIC) {
+            throw new IOException(file + " is not a compiled dictionary");
+        }
+        long checksum = segments[0].getLong(8);
+        int buckets = segments[0].getInt(16);
+        if (buckets < 0 || fileSize < HEADER_BYTES + (long) buckets * BUCKET_BYTES) {
+            throw new IOException(file + " is truncated");
+        }
+        int[] first = new int[buckets];
+        int[] length = new int[buckets];
+        long[] offset = new long[buckets];
+        long words = 0;
+        long at = HEADER_BYTES + (long) buckets * BUCKET_BYTES;
+        for (int b = 0; b < buckets; b++) {
+            length[b] = segments[0].getInt(HEADER_BYTES + b * BUCKET_BYTES);
+            int count = segments[0].getInt(HEADER_BYTES + b * BUCKET_BYTES + 4);
+            first[b] = (int) words;
+            offset[b] = at;
+            words += count;
+            at += (long) count * length[b];
+        }
+        if (words > Integer.MAX_VALUE || at != fileSize) {
+            throw new IOException(file + " is truncated or damaged");
+        }
+        return new CompiledWordList(segments, checksum, first, length, offset, (int) words);
+    }
+
+    /**
+     * Writes the words of {@code source} to {@code target} as a compiled
+     * dictionary and returns how many were kept. The file is written beside
+     * the target and moved over it once complete.
+     */
+    static int compile(WordList source, Path target) throws IOException {
+        Map<Integer, Bucket> buckets = new TreeMap<>();
+        char[] chars = new char[64];
+        byte[] bytes = new byte[64];
+        long kept = 0;
+        for (int i = 0; source.await(i); i++) {
+            if (chars.length < source.maxLength(i)) {
+                chars = new char[source.maxLength(i)];
+            }
+            int charCount = source.getChars(i, chars);
+            int byteCount = 0;
+            for (; byteCount < charCount && chars[byteCount] < 0x80; byteCount++) {
+                if (byteCount == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+                }
+                bytes[byteCount] = (byte) chars[byteCount];
+            }
+            if (byteCount < charCount) {
+                bytes = new String(chars, 0, charCount).getBytes(StandardCharsets.UTF_8); // Not ASCII
+                byteCount = bytes.length;
+            }
+            if (byteCount > 0 && buckets.computeIfAbsent(byteCount, Bucket::new).add(bytes)) {
+                kept++;
+            }
+        }
+        if (kept > Integer.MAX_VALUE) {
+            throw new IOException("more than " + Integer.MAX_VALUE + " distinct words");
+        }
+
+        CRC32 crc = new CRC32();
+        for (Bucket bucket : buckets.values()) {
+            bucket.checksum(crc);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                1 << 16))) {
+            out.writeLong(MAGIC);
+            out.writeLong(crc.getValue());
+            out.writeInt(buckets.size());
+            for (Bucket bucket : buckets.values()) {
+                out.writeInt(bucket.length);
+                out.writeInt(bucket.count);
+            }
+            for (Bucket bucket : buckets.values()) {
+                bucket.writeTo(out);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        return (int) kept;
+    }
+
+    @Override
+    public boolean await(int index) {
+        return index < size;
+    }
+
+    @Override
+    public int available() {
+        return size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int maxLength(int index) {
+        return length[bucketOf(index)];
+    }
+
+    @Override
+    public int getChars(int index, char[] dst) {
+        int bucket = bucketOf(index);
+        int wordLength = length[bucket];
+        long start = offset[bucket] + (long) (index - first[bucket]) * wordLength;
+        for (int i = 0; i < wordLength; i++) {
+            byte b = MappedWordList.byteAt(segments, start + i);
+            if (b < 0) {
+                String word = get(index); // Not ASCII, so decode it properly
+                word.getChars(0, word.length(), dst, 0);
+                return word.length();
+            }
+            dst[i] = (char) b;
+        }
+        return wordLength;
+    }
+
+    @Override
+    public String get(int index) {
+        int bucket = bucketOf(index);
+        long start = offset[bucket] + (long) (index - first[bucket]) * length[bucket];
+        byte[] bytes = new byte[length[bucket]];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = MappedWordList.byteAt(segments, start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long checksum() {
+        return checksum;
+    }
+
+    private int bucketOf(int index) {
+        int bucket = Arrays.binarySearch(first, index);
+        // Empty buckets are never written, so the first words of two buckets never coincide
+        return bucket >= 0 ? bucket : -bucket - 2;
+    }
+
+    /** The distinct words of one length, in the order first seen, with a hash table over them. */
+    private static final class Bucket {
+        private static final int MAX_PAGE_BYTES = 1 << 24;
+
+        final int length;
+        private final int pageBits;
+        private byte[][] pages = new byte[1][];
+        private int[] table = new int[16]; // Word index + 1, or 0 for a free slot
+        int count;
+
+        Bucket(int length) {
+            this.length = length;
+            this.pageBits = 31 - Integer.numberOfLeadingZeros(Math.max(1, MAX_PAGE_BYTES / length));
+        }
+
+        /** Adds the first {@link #length} bytes of {@code word}, unless already present. */
+        boolean add(byte[] word) {
+            int mask = table.length - 1;
+            for (int slot = hash(word, 0) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+                int index = table[slot] - 1;
+                if (Arrays.equals(word, 0, length, page(index), start(index), start(index) + length)) {
+                    return false;
+                }
+            }
+            append(word);
+            if (2 * count > table.length) {
+                rehash(2 * table.length);
+            } else {
+                insert(count - 1);
+            }
+            return true;
+        }
+
+        private void append(byte[] word) {
+            int page = count >>> pageBits;
+            if (page == pages.length) {
+                pages = Arrays.copyOf(pages, 2 * pages.length);
+            }
+            int end = start(count) + length;
+            if (pages[page] == null || pages[page].length < end) {
+                // Pages grow by doubling up to their full size, so rare lengths stay small
+                int capacity = Math.max(16 * length, pages[page] == null ? 0 : 2 * pages[page].length);
+                capacity = Math.min(capacity, length << pageBits);
+                pages[page] = pages[page] == null ? new byte[capacity] : Arrays.copyOf(pages[page], capacity);
+            }
+            System.arraycopy(word, 0, pages[page], start(count), length);
+            count++;
+        }
+
+        private void rehash(int tableSize) {
+            table = new int[tableSize];
+            for (int index = 0; index < count; index++) {
+                insert(index);
+            }
+        }
+
+        private void insert(int index) {
+            int mask = table.length - 1;
+            int slot = hash(page(index), start(index)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        private int hash(byte[] bytes, int start) {
+            int h = 0;
+            for (int i = start; i < start + length; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h ^ (h >>> 16);
+        }
+
+        private byte[] page(int index) {
+            return pages[index >>> pageBits];
+        }
+
+        private int start(int index) {
+            return (index & ((1 << pageBits) - 1)) * length;
+        }
+
+        void checksum(CRC32 crc) {
+            for (int index = 0; index < count; index++) {
+                crc.update(page(index), start(index), length);
+                crc.update('\n');
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            for (int page = 0; page << pageBits < count; page++) {
+                int words = Math.min(count - (page << pageBits), 1 << pageBits);
+                out.write(pages[page], 0, words * length);
+            }
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package cracker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Splits a dictionary run into leases and hands them to worker processes over TCP.
+ *
+ * A lease is one mangle level over a range of dictionary words with every
+ * rule chain of the level, or over a few {@link RuleOrder} work units of one
+ * chain each, so adaptive ordering works across machines as it does in one
+ * process. Small units are packed together until a lease holds enough guesses
+ * to fill the workers' batches. Levels run one after another: the next starts once every lease of
+ * the current one has finished. Each connection is served by its own thread,
+ * which sends the worker the accounts, rules and dictionary once and then one
+ * lease at a time. Workers report cracks as they find them and heartbeat while
+ * they work; a worker that stays silent for the lease timeout is dropped and
+ * its lease goes back to the queue for the next worker that asks. Every crack
+ * is broadcast, so all workers stop hashing for that user at once.
+ *
+ * Messages are a type byte followed by their fields, written with
+ * {@link DataOutputStream}:
+ *
+ * <pre>
+ * HELLO      version, heartbeat seconds, accounts (count, then user:hash each),
+ *            rules (length or -1 for the built-in ones, then the file),
+ *            rules checksum, dictionary (length, then the file)
+ * LEASE      id, mangle level, units (count, then from, to, rule1 and rule2 each;
+ *            both rules -1 for every chain of the level, and a level 2 pair
+ *            of two rules in both orders)
+ * CRACKED    hash
+ * DONE
+ * CRACK      hash, guess, position          (these three go from worker to coordinator)
+ * HEARTBEAT  guesses, crypts and duplicates skipped so far
+ * FINISHED   lease id, guesses queued (count, then one per unit),
+ *            guesses, crypts and duplicates skipped so far
+ * </pre>
+ */
+final class Coordinator {
+
+    static final int VERSION = 3;
+
+    static final byte HELLO = 1;
+    static final byte LEASE = 2;
+    static final byte CRACKED = 3;
+    static final byte DONE = 4;
+    static final byte CRACK = 5;
+    static final byte HEARTBEAT = 6;
+    static final byte FINISHED = 7;
+
+    static final int DEFAULT_LEASE_TIMEOUT = 60; // Seconds
+    private static final int HEARTBEAT_INTERVAL = 5; // Seconds, at most
+
+    // Words per lease at mangle levels 0, 1 and 2 when every chain of the level is tried
+    private static final int[] LEASE_WORDS = { 16384, 1024, 64 };
+    // Guesses a lease of single-chain units should reach, so that its final partial batch costs little
+    private static final long LEASE_POSITIONS = 16384;
+
+    /** Receives a crack reported by a worker; returns false if the target was already cracked. */
+    interface CrackSink {
+        boolean cracked(int target, String guess);
+    }
+
+    /** What a worker learns from the coordinator's HELLO. */
+    static final class Hello {
+        final int heartbeat; // Seconds between heartbeats
+        final List<Account> accounts;
+        final Mangler mangler;
+        final WordList dictionary;
+
+        private Hello(int heartbeat, List<Account> accounts, Mangler mangler, WordList dictionary) {
+            this.heartbeat = heartbeat;
+            this.accounts = accounts;
+            this.mangler = mangler;
+            this.dictionary = dictionary;
+        }
+
+        /** Reads a HELLO, saving the dictionary to a temporary file that is deleted on exit. */
+        static Hello read(DataInputStream in) throws IOException {
+            if (in.readByte() != HELLO || in.readInt() != VERSION) {
+                throw new IOException("not a coordinator of this version");
+            }
+            int heartbeat = in.readInt();
+            List<Account> accounts = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Account account = Account.parse(in.readUTF());
+                if (account == null) {
+                    throw new IOException("malformed account");
+                }
+                accounts.add(account);
+            }
+            Mangler mangler = Mangler.DEFAULT;
+            int rulesLength = in.readInt();
+            if (rulesLength >= 0) {
+                byte[] rules = new byte[rulesLength];
+                in.readFully(rules);
+                mangler = Mangler.compile(new String(rules, StandardCharsets.UTF_8).lines().toList());
+            }
+            if (in.readLong() != mangler.checksum()) {
+                throw new IOException("rules differ from the coordinator's");
+            }
+
+            Path copy = Files.createTempFile("cracker-", ".dict");
+            copy.toFile().deleteOnExit();
+            try (OutputStream out = Files.newOutputStream(copy)) {
+                byte[] buffer = new byte[1 << 16];
+                for (long left = in.readLong(); left > 0; ) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, left));
+                    if (read < 0) {
+                        throw new EOFException("dictionary cut short");
+                    }
+                    out.write(buffer, 0, read);
+                    left -= read;
+                }
+            }
+            return new Hello(heartbeat, accounts, mangler, WordList.open(copy));
+        }
+    }
+
+    /** One mangle level over one or more units: a range of dictionary words with one rule chain or all of them. */
+    static final class Lease {
+        final long id;
+        final int level;
+        final int[] units; // from, to, rule1 and rule2 of each unit
+        final List<RuleOrder.Work> works; // The coordinator's units, for its statistics; null on workers
+
+        Lease(long id, int level, int[] units, List<RuleOrder.Work> works) {
+            this.id = id;
+            this.level = level;
+            this.units = units;
+            this.works = works;
+        }
+
+        int unitCount() {
+            return units.length / 4;
+        }
+
+        int from(int unit) {
+            return units[4 * unit];
+        }
+
+        int to(int unit) {
+            return units[4 * unit + 1];
+        }
+
+        /** The unit's single rule chain as a work unit, or null if it has every chain of the level. */
+        RuleOrder.Work work(Mangler mangler, int unit) {
+            int rule1 = units[4 * unit + 2];
+            return level == 0 || rule1 < 0 ? null
+                    : new RuleOrder.Work(mangler, rule1, units[4 * unit + 3], from(unit), to(unit));
+        }
+
+        /** How many (word, rule chain) positions the lease covers. */
+        long positions(Mangler mangler) {
+            long positions = 0;
+            for (int unit = 0; unit < unitCount(); unit++) {
+                RuleOrder.Work work = work(mangler, unit);
+                long chains = work == null ? mangler.chainCount(level) : work.chains();
+                positions += (to(unit) - from(unit)) * chains;
+            }
+            return positions;
+        }
+
+        static Lease read(DataInputStream in) throws IOException {
+            long id = in.readLong();
+            int level = in.readInt();
+            int[] units = new int[4 * in.readInt()];
+            for (int i = 0; i < units.length; i++) {
+                units[i] = in.readInt();
+            }
+            return new Lease(id, level, units, null);
+        }
+    }
+
+    /**
+     * One end of a connection. Sends are synchronized, so any thread may send;
+     * only one thread may read {@link #in}.
+     */
+    static final class Channel implements Closeable {
+        final DataInputStream in;
+        private final DataOutputStream out;
+        private final Socket socket;
+
+        Channel(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true); // Every message is small and answered at once
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        synchronized void sendLease(Lease lease) throws IOException {
+            out.writeByte(LEASE);
+            out.writeLong(lease.id);
+            out.writeInt(lease.level);
+            out.writeInt(lease.unitCount());
+            for (int unit : lease.units) {
+                out.writeInt(unit);
+            }
+            out.flush();
+        }
+
+        synchronized void sendCracked(String hash) throws IOException {
+            out.writeByte(CRACKED);
+            out.writeUTF(hash);
+            out.flush();
+        }
+
+        synchronized void sendDone() throws IOException {
+            out.writeByte(DONE);
+            out.flush();
+        }
+
+        synchronized void sendCrack(String hash, String guess, long position) throws IOException {
+            out.writeByte(CRACK);
+            out.writeUTF(hash);
+            out.writeUTF(guess);
+            out.writeLong(position);
+            out.flush();
+        }
+
+        synchronized void sendHeartbeat(long guesses, long crypts, long duplicates) throws IOException {
+            out.writeByte(HEARTBEAT);
+            out.writeLong(guesses);
+            out.writeLong(crypts);
+            out.writeLong(duplicates);
+            out.flush();
+        }
+
+        synchronized void sendFinished(long id, long[] queued, long guesses, long crypts, long duplicates)
+                throws IOException {
+            out.writeByte(FINISHED);
+            out.writeLong(id);
+            out.writeInt(queued.length);
+            for (long unitGuesses : queued) {
+                out.writeLong(unitGuesses);
+            }
+            out.writeLong(guesses);
+            out.writeLong(crypts);
+            out.writeLong(duplicates);
+            out.flush();
+        }
+
+        /** Lets the caller write a message of its own, such as HELLO, while holding the send lock. */
+        synchronized void send(Message message) throws IOException {
+            message.write(out);
+            out.flush();
+        }
+
+        String peer() {
+            return String.valueOf(socket.getRemoteSocketAddress());
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    interface Message {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private final List<Account> accounts;
+    private final SaltIndex saltIndex;
+    private final Map<String, Integer> targets = new HashMap<>(); // hash -> target
+    private final Path dictionaryFile;
+    private final WordList dictionary;
+    private final Path rulesFile; // Null for the built-in rules
+    private final Mangler mangler;
+    private final RuleOrder ruleOrder; // Null when rules run in fixed order
+    private final StageStats stats;
+    private final CrackSink sink;
+    private final BooleanSupplier allCracked;
+    private final int leaseTimeout;
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private int level = -1;
+    private int nextFrom;
+    private long nextId;
+    private final Queue<Lease> retry = new ArrayDeque<>();
+    private final Map<Long, Channel> outstanding = new HashMap<>();
+    private final Map<Long, Lease> leases = new HashMap<>();
+
+    Coordinator(List<Account> accounts, SaltIndex saltIndex, Path dictionaryFile, WordList dictionary, Path rulesFile,
+            Mangler mangler, RuleOrder ruleOrder, StageStats stats, int leaseTimeout, CrackSink sink,
+            BooleanSupplier allCracked) {
+        this.accounts = accounts;
+        this.saltIndex = saltIndex;
+        this.dictionaryFile = dictionaryFile;
+        this.dictionary = dictionary;
+        this.rulesFile = rulesFile;
+        this.mangler = mangler;
+        this.ruleOrder = ruleOrder;
+        this.stats = stats;
+        this.leaseTimeout = leaseTimeout;
+        this.sink = sink;
+        this.allCracked = allCracked;
+        for (int userId = 0; userId < accounts.size(); userId++) {
+            targets.put(accounts.get(userId).hash, saltIndex.targetOf(userId));
+        }
+    }
+
+    /** Serves workers on the port until every lease has finished or every password is cracked. */
+    void run(int port) throws IOException {
+        List<Thread> handlers = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port)) {
+            server.setSoTimeout(1000); // To notice when the run is over
+            System.err.println("Coordinator listening on port " + server.getLocalPort() + ".");
+            while (!isOver()) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                }
+                Thread handler = new Thread(() -> serve(socket), "worker-" + socket.getRemoteSocketAddress());
+                handlers.add(handler);
+                handler.start();
+            }
+        }
+        for (Thread handler : handlers) {
+            try {
+                handler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean isOver() {
+        return level > 2 || allCracked.getAsBoolean();
+    }
+
+    // Runs on a connection's own thread: the handshake, then a lease at a time until there are none left.
+    private void serve(Socket socket) {
+        Channel channel = null;
+        try {
+            socket.setSoTimeout(leaseTimeout * 1000);
+            channel = new Channel(socket);
+            channel.send(this::writeHello);
+            channels.add(channel);
+            for (Map.Entry<String, Integer> target : targets.entrySet()) {
+                if (saltIndex.isCracked(target.getValue())) {
+                    channel.sendCracked(target.getKey());
+                }
+            }
+            System.err.println("Worker " + channel.peer() + " connected.");
+
+            long[] reported = new long[3]; // The worker's guesses, crypts and duplicates as of its last report
+            for (Lease lease = nextLease(channel); lease != null; lease = nextLease(channel)) {
+                channel.sendLease(lease);
+                while (!receive(channel, lease.id, reported)) {
+                    // Until the worker finishes this lease
+                }
+            }
+            channel.sendDone();
+            System.err.println("Worker " + channel.peer() + " finished.");
+        } catch (IOException e) {
+            String reason = e instanceof SocketTimeoutException ? "silent for " + leaseTimeout + " seconds"
+                    : e instanceof EOFException ? "disconnected" : e.getMessage();
+            System.err.println("Worker " + (channel == null ? socket.getRemoteSocketAddress() : channel.peer())
+                    + " dropped: " + reason + ".");
+        } finally {
+            channels.remove(channel);
+            release(channel);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    private void writeHello(DataOutputStream out) throws IOException {
+        out.writeByte(HELLO);
+        out.writeInt(VERSION);
+        out.writeInt(Math.max(1, Math.min(HEARTBEAT_INTERVAL, leaseTimeout / 4)));
+        out.writeInt(accounts.size());
+        for (Account account : accounts) {
+            out.writeUTF(account.username + ":" + account.hash);
+        }
+        if (rulesFile == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] rules = Files.readAllBytes(rulesFile);
+            out.writeInt(rules.length);
+            out.write(rules);
+        }
+        out.writeLong(mangler.checksum());
+        out.writeLong(Files.size(dictionaryFile));
+        Files.copy(dictionaryFile, out);
+    }
+
+    // Reads one message from the worker; true once it is the FINISHED for the lease.
+    private boolean receive(Channel channel, long leaseId, long[] reported) throws IOException {
+        DataInputStream in = channel.in;
+        byte type = in.readByte();
+        switch (type) {
+            case CRACK:
+                cracked(channel, in.readUTF(), in.readUTF(), in.readLong());
+                return false;
+            case HEARTBEAT:
+                count(in, reported);
+                return false;
+            case FINISHED:
+                long id = in.readLong();
+                long[] queued = new long[in.readInt()];
+                for (int i = 0; i < queued.length; i++) {
+                    queued[i] = in.readLong();
+                }
+                count(in, reported); // Before the lease can end the level, so the stage's totals have it
+                finished(id, queued);
+                return id == leaseId;
+            default:
+                throw new IOException("unexpected message " + type);
+        }
+    }
+
+    // Reads a worker's guesses, crypts and duplicates so far and counts what they add to its last report. A
+    // heartbeat that was overtaken by a later report adds nothing.
+    private void count(DataInputStream in, long[] reported) throws IOException {
+        StageStats.Counters counters = stats.counters();
+        int[] kinds = { StageStats.GUESSES, StageStats.CRYPTS, StageStats.DUPLICATES };
+        for (int i = 0; i < kinds.length; i++) {
+            long total = in.readLong();
+            if (total > reported[i]) {
+                counters.add(kinds[i], total - reported[i]);
+                reported[i] = total;
+            }
+        }
+    }
+
+    // The next lease for a worker, waiting while the current level's last leases run elsewhere; null once done.
+    private synchronized Lease nextLease(Channel channel) {
+        while (true) {
+            if (level > 2 || allCracked.getAsBoolean()) {
+                return null;
+            }
+            Lease lease = retry.poll();
+            if (lease == null) {
+                lease = newLease();
+            }
+            if (lease != null) {
+                outstanding.put(lease.id, channel);
+                leases.put(lease.id, lease);
+                return lease;
+            }
+            if (outstanding.isEmpty()) {
+                startLevel(level + 1);
+                continue;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private Lease newLease() {
+        if (level < 0) {
+            return null;
+        }
+        if (level == 0 || ruleOrder == null) {
+            int size = dictionary.size();
+            if (nextFrom >= size) {
+                return null;
+            }
+            int from = nextFrom;
+            nextFrom = (int) Math.min((long) from + LEASE_WORDS[level], size);
+            return new Lease(nextId++, level, new int[] { from, nextFrom, -1, -1 }, null);
+        }
+        List<RuleOrder.Work> works = new ArrayList<>();
+        long positions = 0;
+        RuleOrder.Work work;
+        while (positions < LEASE_POSITIONS && (work = ruleOrder.next()) != null) {
+            works.add(work);
+            positions += (long) (work.to - work.from) * work.chains();
+        }
+        if (works.isEmpty()) {
+            return null;
+        }
+        int[] units = new int[4 * works.size()];
+        for (int i = 0; i < works.size(); i++) {
+            work = works.get(i);
+            units[4 * i] = work.from;
+            units[4 * i + 1] = work.to;
+            units[4 * i + 2] = work.rule1;
+            units[4 * i + 3] = work.rule2;
+        }
+        return new Lease(nextId++, level, units, works);
+    }
+
+    private void startLevel(int newLevel) {
+        level = newLevel;
+        nextFrom = 0;
+        if (level > 2) {
+            stats.endStage();
+            notifyAll();
+            return;
+        }
+        if (level > 0 && ruleOrder != null) {
+            ruleOrder.startLevel(level, dictionary.size());
+        }
+        long chains = mangler.chainCount(level);
+        stats.startStage(StageStats.dictionaryStage(level), () -> dictionary.size() * chains);
+    }
+
+    private synchronized void finished(long id, long[] queued) {
+        if (outstanding.remove(id) == null) {
+            return; // Already given to another worker
+        }
+        Lease lease = leases.remove(id);
+        if (lease.works != null) {
+            for (int unit = 0; unit < lease.works.size() && unit < queued.length; unit++) {
+                ruleOrder.finished(lease.works.get(unit), queued[unit]);
+            }
+        }
+        stats.counters().add(StageStats.DONE, lease.positions(mangler));
+        notifyAll();
+    }
+
+    // Puts a lost worker's leases back in the queue.
+    private synchronized void release(Channel channel) {
+        int released = 0;
+        for (Iterator<Map.Entry<Long, Channel>> it = outstanding.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Channel> entry = it.next();
+            if (entry.getValue() == channel) {
+                it.remove();
+                retry.add(leases.remove(entry.getKey()));
+                released++;
+            }
+        }
+        if (released > 0 && !isOver()) {
+            System.err.println("Reassigning " + released + " lease" + (released == 1 ? "" : "s") + ".");
+        }
+        notifyAll();
+    }
+
+    // Takes a worker's crack, once it crypts to the hash, and passes it on to every worker.
+    private void cracked(Channel from, String hash, String guess, long position) {
+        Integer target = targets.get(hash);
+        if (target == null) {
+            return;
+        }
+        if (!Potfile.crypts(guess, hash)) {
+            System.err.println("Warning: Worker " + from.peer() + " sent a password that does not crypt to "
+                    + hash + ", ignoring it.");
+            return;
+        }
+        if (!sink.cracked(target, guess)) {
+            return;
+        }
+        if (ruleOrder != null) {
+            ruleOrder.cracked(position);
+        }
+        for (Channel channel : channels) {
+            try {
+                channel.sendCracked(hash);
+            } catch (IOException e) {
+                // Its own thread notices and drops it
+            }
+        }
+        synchronized (this) {
+            notifyAll(); // Workers waiting for a lease may be done now
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package cracker;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The cracking engine every program shares: the stages, the candidates each
+ * stage generates and how guesses are verified, defined once and run on
+ * whichever {@link Scheduler} the program picks.
+ *
+ * A run tries each account's username, then its mangles, then the words of
+ * the account's own GECOS and home fields with up to one mangle, each
+ * against that account's salt only, then the dictionary with no, one and two
+ * mangles: breadth first, every word at one mangle level
+ * before the next level, or depth first, every level of a word before the next
+ * word. A mask run tries the candidates of a {@link Mask} instead. Each thread
+ * that hashes keeps its own {@link BatchVerifier}, whose batches run on across
+ * slices so that small slices still fill them, and reports a slice to the
+ * {@link Checkpoint} only once every guess in it has been verified. That is
+ * the thread that generated the guesses, unless the scheduler hands them to
+ * hashing threads of its own.
+ *
+ * Cracks are claimed with one atomic operation in the {@link SaltIndex}, saved
+ * to the checkpoint and credited to the {@link RuleOrder} by the thread that
+ * finds them, and then handed to a {@link ResultWriter}, which prints them,
+ * saves them to the potfile and passes them to the {@link #onCrack} listener
+ * on a thread of its own. Every stage stops early once all passwords are
+ * found.
+ */
+final class Cracker {
+
+    /** Told of each crack this process finds, with the position of the guess, or -1 outside the dictionary. */
+    interface CrackListener {
+        void cracked(String hash, String guess, long position);
+    }
+
+    private static final int KEY_STRIPES = 64;
+    private static final int ACCOUNT_SLICE = 16;
+    private static final long MASK_SLICE = 1 << 16;
+
+    private final List<Account> accounts;
+    private final SaltIndex saltIndex;
+    private final WordList dictionary; // Null in mask runs
+    private final Mangler mangler;
+    private final RuleOrder ruleOrder; // Null when rules run in fixed order
+    private final Scheduler scheduler;
+    private final BatchVerifier.Engine engine;
+    private final int dedupWindow;
+    private final boolean useKeyFilter;
+    private final Checkpoint checkpoint;
+    private final Potfile potfile;
+    private final StageStats stats;
+    private final AtomicInteger crackedCount = new AtomicInteger();
+    private volatile boolean allCracked;
+    private final ResultWriter results;
+    private volatile CrackListener listener = (hash, guess, position) -> { };
+
+    private final Queue<Hasher> hashers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Worker> threadWorker = ThreadLocal.withInitial(Worker::new);
+    private final LongAdder queuedGuesses = new LongAdder(); // Queued by the current tryWords call
+
+    // Set between stages, while no slice runs
+    private KeySet[] triedKeys; // Current stage's, striped by key; each stripe guarded by itself
+    private KeyFilter keyFilter; // Keys of the earlier mangle levels, from level 1 on
+    private Mask mask; // Set in mask runs instead of the dictionary
+    private int leaseLevel = -1; // Mangle level of the last lease run
+
+    Cracker(List<Account> accounts, WordList dictionary, Mangler mangler, RuleOrder ruleOrder, Scheduler scheduler,
+            BatchVerifier.Engine engine, int dedupWindow, boolean useKeyFilter, Checkpoint checkpoint, Potfile potfile,
+            StageStats stats) {
+        this.accounts = accounts;
+        this.saltIndex = new SaltIndex(Account.hashes(accounts));
+        this.dictionary = dictionary;
+        this.mangler = mangler;
+        this.ruleOrder = ruleOrder;
+        this.scheduler = scheduler;
+        this.engine = engine;
+        this.dedupWindow = dedupWindow;
+        this.useKeyFilter = useKeyFilter;
+        this.checkpoint = checkpoint;
+        this.potfile = potfile;
+        this.stats = stats;
+        this.results = new ResultWriter(accounts, potfile,
+                (hash, guess, position) -> listener.cracked(hash, guess, position));
+        scheduler.open(Hasher::new);
+    }
+
+    /** Passes each crack on to the listener, on the result writer's thread; set before any stage runs. */
+    void onCrack(CrackListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Also keeps every password found in the file, on its account's line of
+     * the password file; set before {@link #restoreCracks}.
+     */
+    void writePlain(Path file) {
+        results.writePlain(file);
+    }
+
+    SaltIndex saltIndex() {
+        return saltIndex;
+    }
+
+    boolean allCracked() {
+        return allCracked;
+    }
+
+    /**
+     * Prints the passwords already known from the potfile or from the
+     * interrupted run, marking their accounts cracked; call before any stage.
+     */
+    void restoreCracks() {
+        Map<String, String> cracked = checkpoint.cracked();
+        for (int userId = 0; userId < accounts.size(); userId++) {
+            String hash = accounts.get(userId).hash;
+            String guess = potfile.lookup(hash);
+            if (guess == null) {
+                guess = cracked.get(hash);
+            }
+            if (guess != null) {
+                markCracked(saltIndex.targetOf(userId), guess, -1);
+            }
+        }
+    }
+
+    /**
+     * Runs every stage from the one the checkpoint is at, with the dictionary
+     * breadth or depth first, and stops once every password is cracked.
+     */
+    void runStages(boolean depthFirst) {
+        runAccountStages();
+        if (dictionary.isEmpty()) {
+            if (!allCracked) {
+                results.sync();
+                System.out.println(crackedCount.get() + " out of " + accounts.size()
+                        + " passwords cracked. Remaining could not be attempted without a dictionary.");
+            }
+        } else if (depthFirst) {
+            if (checkpoint.stage() <= Checkpoint.DICTIONARY && !allCracked) {
+                runDepthFirst();
+            }
+        } else {
+            // Each mangle level is its own stage: cheap levels finish before expensive ones start
+            for (int mangleLevel = Math.max(0, checkpoint.stage() - Checkpoint.DICTIONARY);
+                    mangleLevel <= 2 && !allCracked; mangleLevel++) {
+                runLevel(mangleLevel);
+            }
+        }
+        checkpoint.startStage(Checkpoint.DONE);
+    }
+
+    /**
+     * Runs the stages before the dictionary ones, which try each account's
+     * own words: its username as is, then mangled, then its
+     * {@link Account#personalWords} as is and mangled.
+     */
+    void runAccountStages() {
+        if (checkpoint.stage() <= Checkpoint.USERNAMES && !allCracked) {
+            stats.startStage("usernames", accounts::size);
+            tryAccountWords(Cracker::username, 0);
+        }
+        if (checkpoint.stage() <= Checkpoint.MANGLED_USERNAMES && !allCracked) {
+            checkpoint.startStage(Checkpoint.MANGLED_USERNAMES);
+            stats.startStage("mangled usernames", () -> accounts.size() * mangler.chainCount(1));
+            tryAccountWords(Cracker::username, 1);
+        }
+        if (checkpoint.stage() <= Checkpoint.PERSONAL_WORDS && !allCracked) {
+            checkpoint.startStage(Checkpoint.PERSONAL_WORDS);
+            long chains = mangler.chainCount(0) + mangler.chainCount(1);
+            stats.startStage("personal words", () -> accounts.size() * chains);
+            tryAccountWords(Account::personalWords, 0, 1);
+        }
+    }
+
+    /** Tries every candidate of the mask instead of the usual stages. */
+    void runMask(Mask mask) {
+        if (allCracked) {
+            return;
+        }
+        this.mask = mask;
+        stats.startStage("mask " + mask, mask::keyspace);
+        scheduler.run(0, mask.keyspace(), MASK_SLICE, this::tryMaskSlice);
+        flushWorkers();
+    }
+
+    /**
+     * Runs a coordinator's lease and verifies every guess in it, returning how
+     * many guesses of each unit were queued. The first lease of a mangle level
+     * starts the level, as when cracking alone.
+     */
+    long[] runLease(Coordinator.Lease lease) {
+        if (lease.level != leaseLevel) {
+            leaseLevel = lease.level;
+            checkpoint.startStage(Checkpoint.DICTIONARY + leaseLevel);
+            startLevel(leaseLevel);
+        }
+        long[] queued = new long[lease.unitCount()];
+        for (int unit = 0; unit < queued.length; unit++) {
+            dictionary.await(lease.to(unit) - 1);
+            queued[unit] = tryWords(lease.from(unit), lease.to(unit), lease.level, lease.work(mangler, unit));
+        }
+        flushWorkers();
+        results.sync(); // Every crack of the lease is reported before the lease is
+        return queued;
+    }
+
+    /**
+     * Marks every account sharing the target's hash as cracked and queues the
+     * guess to be printed once per account. The atomic OR in
+     * {@link SaltIndex#claim} lets exactly one thread report a given hash;
+     * returns false for the others.
+     */
+    boolean markCracked(int target, String guess, long position) {
+        int[] userIds = saltIndex.claim(target);
+        if (userIds == null) {
+            return false;
+        }
+        String hash = accounts.get(userIds[0]).hash;
+        checkpoint.cracked(hash, guess); // Before the guess's slice can be reported done
+        results.add(hash, guess, position, userIds);
+        for (int userId : userIds) {
+            stats.cracked(accounts.get(userId).username);
+            if (crackedCount.incrementAndGet() == accounts.size()) {
+                allCracked = true;
+            }
+        }
+        return true;
+    }
+
+    /** A crack found elsewhere: drops the accounts with that hash from the targets, without printing them. */
+    void dropCracked(String hash) {
+        for (int userId = 0; userId < accounts.size(); userId++) {
+            if (!accounts.get(userId).hash.equals(hash)) {
+                continue;
+            }
+            int[] userIds = saltIndex.claim(saltIndex.targetOf(userId));
+            if (userIds == null) {
+                return;
+            }
+            for (int i = 0; i < userIds.length; i++) {
+                if (crackedCount.incrementAndGet() == accounts.size()) {
+                    allCracked = true;
+                }
+            }
+            return;
+        }
+    }
+
+    /** Stops the scheduler's threads, once every crack is written. */
+    void close() {
+        scheduler.close();
+        results.close();
+    }
+
+    // Tries the words of each account, mangled at each of the levels, against that account's own salt. Progress
+    // counts one chain per level per account, whatever its number of words.
+    private void tryAccountWords(Function<Account, List<String>> wordsOf, int... mangleLevels) {
+        long chains = 0;
+        for (int mangleLevel : mangleLevels) {
+            chains += mangler.chainCount(mangleLevel);
+        }
+        long accountChains = chains;
+        scheduler.run(0, accounts.size(), ACCOUNT_SLICE, (from, to) -> {
+            Worker worker = threadWorker.get();
+            for (int userId = (int) from; userId < to && !allCracked; userId++) {
+                worker.counters.add(StageStats.DONE, accountChains);
+                Account account = accounts.get(userId);
+                int target = saltIndex.targetOf(userId);
+                int group = saltIndex.groupOf(target);
+                List<String> words = group < 0 || saltIndex.isCracked(target) ? List.of() : wordsOf.apply(account);
+                if (words.isEmpty()) {
+                    continue; // Cracked already, its hash can never match, or nothing to try
+                }
+                for (int mangleLevel : mangleLevels) {
+                    CandidateStream candidates = new CandidateStream(WordList.of(words), mangler, 0, words.size(),
+                            mangleLevel);
+                    while (candidates.next() && !saltIndex.isCracked(target)) {
+                        long raw = jcrypt.cryptRaw(saltIndex.saltBits(group), candidates.key(), worker.scratch);
+                        worker.counters.add(StageStats.GUESSES, 1);
+                        worker.counters.add(StageStats.CRYPTS, 1);
+                        int found = saltIndex.findTarget(group, raw);
+                        if (found >= 0) {
+                            markCracked(found, candidates.guessAt(candidates.position()), -1);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private static List<String> username(Account account) {
+        return account.username.isEmpty() ? List.of() : List.of(account.username);
+    }
+
+    // Mangle levels 1 and 2 run one rule chain at a time in the order ruleOrder picks from the cracks so far;
+    // without a ruleOrder, or at level 0, every mangle of a word is tried before moving on to the next word.
+    private void runLevel(int mangleLevel) {
+        checkpoint.startStage(Checkpoint.DICTIONARY + mangleLevel);
+        long chains = mangler.chainCount(mangleLevel);
+        stats.startStage(StageStats.dictionaryStage(mangleLevel), () -> dictionary.available() * chains);
+        startLevel(mangleLevel);
+        if (mangleLevel == 0) {
+            // Hashing starts on the words indexed so far while the rest of the dictionary is indexed
+            for (int from = 0; !allCracked && dictionary.await(from); ) {
+                int to = dictionary.available();
+                tryWords(from, to, mangleLevel, null);
+                from = to;
+            }
+        } else if (ruleOrder == null) {
+            tryWords(0, dictionary.size(), mangleLevel, null);
+        } else {
+            // One rule chain over one dictionary slice at a time, best yield per crypt first
+            ruleOrder.startLevel(mangleLevel, dictionary.size());
+            for (RuleOrder.Work work = ruleOrder.next(); work != null && !allCracked; work = ruleOrder.next()) {
+                ruleOrder.finished(work, tryWords(work.from, work.to, mangleLevel, work));
+            }
+        }
+        flushWorkers(); // Before the next stage, whose start forgets this one's ranges
+    }
+
+    // Every level of a word before the next word. The checkpoint records the words whose levels are all done, under
+    // the level 0 stage. The key filter is not used, as level 2 guesses come in between those of lower levels.
+    private void runDepthFirst() {
+        checkpoint.startStage(Checkpoint.DICTIONARY);
+        long chains = mangler.chainCount(0) + mangler.chainCount(1) + mangler.chainCount(2);
+        stats.startStage("dictionary, depth first", () -> dictionary.available() * chains);
+        startLevel(0);
+        for (int from = 0; !allCracked && dictionary.await(from); ) {
+            int to = dictionary.available();
+            scheduler.run(from, to, Checkpoint.RANGE_WORDS[2], (start, end) -> {
+                if (allCracked) {
+                    return;
+                }
+                int[] remaining = checkpoint.remaining(Checkpoint.ALL_CHAINS, (int) start, (int) end);
+                Worker worker = threadWorker.get();
+                for (int i = 0; i < remaining.length; i += 2) {
+                    for (int word = remaining[i]; word < remaining[i + 1]; word++) {
+                        for (int mangleLevel = 0; mangleLevel <= 2; mangleLevel++) {
+                            worker.tryCandidates(new CandidateStream(dictionary, mangler, word, word + 1,
+                                    mangleLevel));
+                        }
+                    }
+                }
+                worker.finished(Checkpoint.ALL_CHAINS, (int) start, (int) end, chains);
+            });
+            from = to;
+        }
+        flushWorkers();
+    }
+
+    // A new mangle level: nothing tried yet, and a filter of the keys the levels before it hashed.
+    private void startLevel(int mangleLevel) {
+        int stripes = scheduler.threads() == 1 ? 1 : KEY_STRIPES;
+        triedKeys = new KeySet[stripes];
+        for (int i = 0; i < stripes; i++) {
+            triedKeys[i] = new KeySet(dedupWindow / stripes);
+        }
+        // Level 1 records its keys on top of the dictionary words; level 2 only skips what the levels before it
+        // hashed. Level 0 needs none, and its dictionary may still be loading.
+        if (useKeyFilter && mangleLevel > 0) {
+            if (keyFilter == null) {
+                keyFilter = KeyFilter.forDictionary(dictionary, mangler, mangleLevel);
+            }
+            if (mangleLevel == 2) {
+                keyFilter.seal();
+            }
+        }
+    }
+
+    // Tries the words [from, to) with every chain of the level, or with just the work unit's chain, a checkpoint
+    // range at a time. Returns how many guesses were queued.
+    private long tryWords(int from, int to, int mangleLevel, RuleOrder.Work work) {
+        queuedGuesses.reset();
+        int chain = work == null ? Checkpoint.ALL_CHAINS : work.chain();
+        long chains = work == null ? mangler.chainCount(mangleLevel) : work.chains();
+        int rangeWords = work == null ? Checkpoint.RANGE_WORDS[mangleLevel] : Checkpoint.CHAIN_RANGE_WORDS;
+        scheduler.run(from, to, rangeWords, (start, end) -> {
+            if (allCracked) {
+                return;
+            }
+            // Skips any part a resumed checkpoint has already finished
+            int[] remaining = checkpoint.remaining(chain, (int) start, (int) end);
+            Worker worker = threadWorker.get();
+            long queued = 0;
+            for (int i = 0; i < remaining.length; i += 2) {
+                queued += worker.tryCandidates(work == null
+                        ? new CandidateStream(dictionary, mangler, remaining[i], remaining[i + 1], mangleLevel)
+                        : work.candidates(dictionary, remaining[i], remaining[i + 1]));
+            }
+            queuedGuesses.add(queued);
+            worker.finished(chain, (int) start, (int) end, chains);
+        });
+        return queuedGuesses.sum();
+    }
+
+    private void tryMaskSlice(long from, long to) {
+        if (allCracked) {
+            return;
+        }
+        Worker worker = threadWorker.get();
+        Mask.Cursor candidates = mask.cursor(from, to);
+        while (candidates.next() && !allCracked) {
+            worker.counters.add(StageStats.GUESSES, 1);
+            worker.sink.add(candidates.key(), candidates.position());
+        }
+        worker.counters.add(StageStats.DONE, to - from);
+    }
+
+    // Records a canonical key as hashed in this stage; false if some thread recently hashed it.
+    private boolean markTried(long key) {
+        KeySet stripe = triedKeys[(int) ((key ^ (key >>> 29)) & (triedKeys.length - 1))];
+        synchronized (stripe) {
+            return stripe.add(key);
+        }
+    }
+
+    // Checks every guess still waiting in a hasher's batch; only call while no slice is running.
+    private void flushWorkers() {
+        for (Hasher hasher : hashers) {
+            hasher.verifier.flush();
+        }
+    }
+
+    /**
+     * A hashing thread's verifier, and the slices whose guesses it has been
+     * given but not finished checking. Those are reported to the checkpoint on
+     * every flush. Only its own thread touches a hasher, except flushWorkers()
+     * while the scheduler is idle.
+     */
+    private final class Hasher implements Scheduler.Sink {
+        final List<int[]> unverified = new ArrayList<>(); // chain, from and to of each slice
+        final BatchVerifier verifier = new BatchVerifier(saltIndex, engine, (target, position) -> {
+            String guess = mask != null ? mask.guessAt(position)
+                    : CandidateStream.guessAt(dictionary, mangler, position);
+            if (markCracked(target, guess, position) && ruleOrder != null) {
+                ruleOrder.cracked(position);
+            }
+        });
+
+        Hasher() {
+            verifier.countInto(stats.counters());
+            verifier.onFlush(() -> {
+                for (int[] slice : unverified) {
+                    checkpoint.done(slice[0], slice[1], slice[2]);
+                }
+                unverified.clear();
+            });
+            hashers.add(this);
+        }
+
+        @Override
+        public void add(long key, long position) {
+            verifier.add(key, position);
+        }
+
+        @Override
+        public void finished(int[] slice) {
+            unverified.add(slice);
+        }
+    }
+
+    /**
+     * A generating thread's counters, and where its guesses go: a hasher of
+     * its own, or the scheduler's sink for the thread. Only its own thread
+     * touches a worker.
+     */
+    private final class Worker {
+        final StageStats.Counters counters = stats.counters();
+        final jcrypt.Scratch scratch = new jcrypt.Scratch();
+        final Scheduler.Sink sink;
+
+        Worker() {
+            Scheduler.Sink handoff = scheduler.sink();
+            sink = handoff != null ? handoff : new Hasher();
+        }
+
+        // Queues every guess whose key was neither tried recently nor by an earlier level; returns how many were
+        // queued.
+        long tryCandidates(CandidateStream candidates) {
+            long queued = 0;
+            while (candidates.next() && !allCracked) {
+                counters.add(StageStats.GUESSES, 1);
+                long key = candidates.key();
+                // crypt sees the same key as a recent guess or one of an earlier level
+                if (!markTried(key) || keyFilter != null && !keyFilter.add(key)) {
+                    counters.add(StageStats.DUPLICATES, 1);
+                    continue;
+                }
+
+                // Hashed once per distinct salt, a batch at a time
+                sink.add(key, candidates.position());
+                queued++;
+            }
+            return queued;
+        }
+
+        // Counts a slice of words as done, to be reported to the checkpoint once its guesses are verified.
+        void finished(int chain, int from, int to, long chains) {
+            counters.add(StageStats.DONE, (to - from) * chains);
+            if (!allCracked) {
+                sink.finished(new int[] { chain, from, to });
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package cracker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Canonical DES keys (see {@link jcrypt#canonicalKey}) hashed by earlier
+ * mangle levels, so that later ones skip guesses crypt would treat the same.
+ *
+ * A split block Bloom filter: each key sets one bit in each of the eight longs
+ * of a 64-byte block, so a lookup touches a single cache line. The bits live
+ * off-heap in a direct buffer sized from the keyspace of mangle levels 0 and
+ * 1, at 24 bits a key, and are set with atomic ORs, so any number of threads
+ * may add and test keys at once without locks.
+ *
+ * Unlike {@link KeySet} the filter never forgets, but it may claim a key it
+ * never saw: about one guess in 10,000 is skipped wrongly once it is full.
+ * Level 2's keyspace is far larger than the filter, so it is {@link #seal
+ * sealed} before level 2 starts and only tested from then on. Thread-safe.
+ */
+final class KeyFilter {
+
+    private static final int BITS_PER_KEY = 24;
+    private static final long MAX_BYTES = 1L << 30;
+    private static final int BLOCK_LONGS = 8;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    // Odd multipliers picking a block's eight bits from one hash, as in Parquet's split block filter
+    private static final int[] SALTS = { 0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b,
+            0x9efc4947, 0x5c6bfb31 };
+
+    private final ByteBuffer bits;
+    private final long blocks;
+    private boolean sealed; // Set between stages, while no thread is guessing
+
+    /** An empty filter sized for {@code expectedKeys} keys. */
+    KeyFilter(long expectedKeys) {
+        long bytes = Math.min(MAX_BYTES, Math.max(1, expectedKeys) * BITS_PER_KEY / 8);
+        blocks = Math.max(1, bytes / (BLOCK_LONGS * Long.BYTES));
+        bits = ByteBuffer.allocateDirect((int) (blocks * BLOCK_LONGS * Long.BYTES));
+    }
+
+    /**
+     * A filter sized for the keys of mangle levels 0 and 1 over the
+     * dictionary, holding those of every level below {@code level}; level 0
+     * and 1 guesses are replayed without being hashed.
+     */
+    static KeyFilter forDictionary(WordList dictionary, Mangler mangler, int level) {
+        int words = dictionary.size();
+        KeyFilter filter = new KeyFilter(words * (1 + mangler.chainCount(1)));
+        for (int seeded = 0; seeded < Math.min(level, 2); seeded++) {
+            CandidateStream candidates = new CandidateStream(dictionary, mangler, 0, words, seeded);
+            while (candidates.next()) {
+                filter.add(candidates.key());
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Records the key, returning false if the filter already held it. Once
+     * sealed, only tests it.
+     */
+    boolean add(long key) {
+        long hash = mix(key);
+        int base = (int) Math.multiplyHigh(hash >>> 1, blocks << 1) * BLOCK_LONGS * Long.BYTES;
+        int lane = (int) hash;
+        boolean added = false;
+        for (int i = 0; i < BLOCK_LONGS; i++) {
+            int offset = base + i * Long.BYTES;
+            long bit = 1L << ((lane * SALTS[i]) >>> 26);
+            if (((long) LONGS.getOpaque(bits, offset) & bit) != 0) {
+                continue;
+            }
+            if (sealed) {
+                return true;
+            }
+            added |= ((long) LONGS.getAndBitwiseOr(bits, offset, bit) & bit) == 0;
+        }
+        return added;
+    }
+
+    /** Stops recording keys; {@link #add} only tests them from now on. Call while no thread is adding. */
+    void seal() {
+        sealed = true;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
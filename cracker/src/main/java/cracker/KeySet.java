@@ -0,0 +1,108 @@
+package cracker;
+
+import java.util.Arrays;
+
+/**
+ * Bounded window of recently hashed canonical DES keys (see
+ * {@link jcrypt#canonicalKey}), used to drop guesses that crypt would treat
+ * as a key already tried.
+ *
+ * Keys are kept in two open-addressing generations of up to half the window
+ * each. When the current generation fills up, the older one is discarded and
+ * the current one takes its place, so the set always remembers at least the
+ * last {@code window / 2} distinct keys and never more than {@code window}.
+ * Memory stays flat however long the stage runs, at the price of an
+ * occasional repeated crypt for a duplicate that arrives after it has aged
+ * out. Not thread-safe.
+ */
+final class KeySet {
+
+    static final int DEFAULT_WINDOW = 1 << 21;
+
+    // Canonical keys use the low 56 bits; the tag marks a slot as occupied.
+    private static final long OCCUPIED = 1L << 63;
+
+    private final int generationSize;
+    private long[] current = new long[64];
+    private long[] previous = new long[64];
+    private int currentSize;
+    private int previousSize;
+
+    KeySet(int window) {
+        this.generationSize = Math.max(16, window / 2);
+    }
+
+    /** Adds the key, returning false if it is still within the window. */
+    boolean add(long key) {
+        if (currentSize >= generationSize) {
+            long[] recycled = previous;
+            previous = current;
+            previousSize = currentSize;
+            current = recycled;
+            Arrays.fill(current, 0);
+            currentSize = 0;
+        } else if (currentSize * 2 >= current.length) {
+            current = resize(current, current.length * 2);
+        }
+
+        long tagged = key | OCCUPIED;
+        int hash = mix(key);
+        if (previousSize > 0 && contains(previous, tagged, hash)) {
+            return false;
+        }
+
+        int mask = current.length - 1;
+        int slot = hash & mask;
+        while (current[slot] != 0) {
+            if (current[slot] == tagged) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        current[slot] = tagged;
+        currentSize++;
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(current, 0);
+        Arrays.fill(previous, 0);
+        currentSize = 0;
+        previousSize = 0;
+    }
+
+    private static boolean contains(long[] slots, long tagged, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            if (slots[slot] == tagged) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static long[] resize(long[] old, int capacity) {
+        long[] slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long tagged : old) {
+            if (tagged == 0) {
+                continue;
+            }
+            int slot = mix(tagged & ~OCCUPIED) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = tagged;
+        }
+        return slots;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
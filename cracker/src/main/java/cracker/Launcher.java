@@ -0,0 +1,531 @@
+package cracker;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The command line every program shares. It parses the options, loads the
+ * inputs and runs a {@link Cracker} on the program's {@link Scheduler}, in one
+ * of five modes:
+ *
+ * <ul>
+ * <li>the usual stages over a dictionary;</li>
+ * <li>a mask attack ({@code --mask});</li>
+ * <li>compiling a dictionary ({@code --compile});</li>
+ * <li>coordinating workers ({@code --serve});</li>
+ * <li>working for a coordinator ({@code --connect}).</li>
+ * </ul>
+ *
+ * Errors in the arguments or inputs are reported on stderr and end the
+ * process with status 1.
+ */
+final class Launcher {
+
+    private static final Coordinator.Lease NO_LEASE = new Coordinator.Lease(-1, 0, new int[0], null);
+
+    private final String program;
+    private final Supplier<Scheduler> schedulers;
+    private final boolean depthFirst;
+
+    /**
+     * A program that runs its stages on schedulers from {@code schedulers},
+     * trying the dictionary depth first or breadth first.
+     */
+    Launcher(String program, Supplier<Scheduler> schedulers, boolean depthFirst) {
+        this.program = program;
+        this.schedulers = schedulers;
+        this.depthFirst = depthFirst;
+    }
+
+    void run(String[] args) {
+        Options options = new Options(args);
+        if (options.has("compile")) {
+            compileDictionary(options);
+        } else if (options.has("mask")) {
+            runMaskAttack(options);
+        } else if (options.has("serve")) {
+            runCoordinator(options);
+        } else if (options.has("connect")) {
+            runWorker(options);
+        } else {
+            runStages(options);
+        }
+    }
+
+    private String stagesUsage() {
+        return "java " + program + " [--engine=bitslice|scalar|vector] [--dedup-window=<keys>]"
+                + (depthFirst ? "" : " [--no-key-filter]") + " [--pipeline [--ring-batches=<n>] [--batch-keys=<n>]]"
+                + " [--rules=<file>]"
+                + (depthFirst ? "" : " [--rule-order=adaptive|fixed]")
+                + " [--checkpoint=<file> [--checkpoint-interval=<seconds>] [--resume]]"
+                + " [--potfile=<file> | --no-potfile] [--plain=<file>] [--progress=<seconds> | --no-progress]"
+                + " <dictionary_file> <password_file>";
+    }
+
+    private String maskUsage() {
+        return "java " + program + " --mask=<mask> [--increment[=<min>-<max>]] [--engine=bitslice|scalar|vector]"
+                + " [--pipeline [--ring-batches=<n>] [--batch-keys=<n>]]"
+                + " [--potfile=<file> | --no-potfile] [--plain=<file>] [--progress=<seconds> | --no-progress]"
+                + " <password_file>";
+    }
+
+    private String compileUsage() {
+        return "java " + program + " --compile=<compiled_file> <dictionary_file>";
+    }
+
+    private String coordinatorUsage() {
+        return "java " + program + " --serve=<port> [--lease-timeout=<seconds>] [--rules=<file>]"
+                + " [--rule-order=adaptive|fixed] [--potfile=<file> | --no-potfile] [--plain=<file>]"
+                + " [--progress=<seconds> | --no-progress] <dictionary_file> <password_file>";
+    }
+
+    private String workerUsage() {
+        return "java " + program + " --connect=<host>:<port> [--engine=bitslice|scalar|vector] [--dedup-window=<keys>]"
+                + " [--no-key-filter] [--pipeline [--ring-batches=<n>] [--batch-keys=<n>]]";
+    }
+
+    private static void usage(String... lines) {
+        for (int i = 0; i < lines.length; i++) {
+            System.err.println((i == 0 ? "Usage: " : "       ") + lines[i]);
+        }
+        System.exit(1);
+    }
+
+    // The usual stages: usernames, mangled usernames, personal words, then the dictionary with up to two mangles.
+    private void runStages(Options options) {
+        String[] known = depthFirst
+                ? new String[] { "engine", "dedup-window", "pipeline", "ring-batches", "batch-keys", "rules",
+                        "checkpoint", "checkpoint-interval", "resume", "potfile", "no-potfile", "plain", "progress",
+                        "no-progress" }
+                : new String[] { "engine", "dedup-window", "no-key-filter", "pipeline", "ring-batches", "batch-keys",
+                        "rules", "rule-order", "checkpoint", "checkpoint-interval", "resume", "potfile", "no-potfile",
+                        "plain", "progress", "no-progress" };
+        if (options.positional().size() != 2 || options.unknown(known) != null) {
+            usage(stagesUsage(), maskUsage(), compileUsage(), coordinatorUsage(), workerUsage());
+        }
+        String dictionaryFile = options.positional().get(0);
+        String passwordFile = options.positional().get(1);
+        BatchVerifier.Engine engine = parseEngine(options);
+        Supplier<Scheduler> scheduler = parseScheduler(options);
+        int dedupWindow = parsePositive("dedup-window", options.get("dedup-window",
+                String.valueOf(KeySet.DEFAULT_WINDOW)), "number of keys");
+        int checkpointInterval = parsePositive("checkpoint-interval", options.get("checkpoint-interval", "60"),
+                "number of seconds");
+        StageStats stats = openStats(options);
+        RuleOrder.Mode ruleOrderMode = depthFirst ? RuleOrder.Mode.FIXED : parseRuleOrder(options);
+        requireReadable("Dictionary", dictionaryFile);
+        requireReadable("Password", passwordFile);
+
+        WordList dictionary = loadDictionary(dictionaryFile);
+        List<Account> accounts = loadAccounts(passwordFile);
+        Mangler mangler = loadRules(options.get("rules", null));
+        // Shared by both mangle levels so level 2 starts from what level 1 learned
+        RuleOrder ruleOrder = ruleOrderMode == RuleOrder.Mode.ADAPTIVE ? new RuleOrder(mangler) : null;
+        Checkpoint checkpoint = openCheckpoint(options, dictionary, mangler, accounts, ruleOrderMode);
+        if (ruleOrder != null) {
+            checkpoint.track(ruleOrder);
+        }
+        Potfile potfile = openPotfile(options, accounts);
+        Cracker cracker = new Cracker(accounts, dictionary, mangler, ruleOrder, scheduler.get(), engine, dedupWindow,
+                !options.has("no-key-filter"), checkpoint, potfile, stats);
+        writePlain(options, cracker);
+        cracker.restoreCracks();
+        checkpoint.startAutosave(checkpointInterval);
+        try {
+            cracker.runStages(depthFirst);
+        } finally {
+            cracker.close();
+            stats.close();
+            checkpoint.close();
+            potfile.close();
+        }
+    }
+
+    // Mask mode: instead of the usual stages, tries every candidate of --mask against the password file.
+    private void runMaskAttack(Options options) {
+        if (options.positional().size() != 1 || options.unknown("mask", "increment", "engine", "pipeline",
+                "ring-batches", "batch-keys", "potfile", "no-potfile", "plain", "progress", "no-progress") != null) {
+            usage(maskUsage());
+        }
+        String passwordFile = options.positional().get(0);
+        Mask mask = null;
+        try {
+            mask = Mask.parse(options.get("mask", ""), options.get("increment", null));
+        } catch (IllegalArgumentException err) {
+            fail(err.getMessage() + ".");
+        }
+        BatchVerifier.Engine engine = parseEngine(options);
+        Supplier<Scheduler> scheduler = parseScheduler(options);
+        requireReadable("Password", passwordFile);
+        StageStats stats = openStats(options);
+        List<Account> accounts = loadAccounts(passwordFile);
+
+        Checkpoint checkpoint = new Checkpoint(null, () -> "mask"); // Cracks are only kept in the potfile
+        Potfile potfile = openPotfile(options, accounts);
+        Cracker cracker = new Cracker(accounts, null, null, null, scheduler.get(), engine, 0, false, checkpoint,
+                potfile, stats);
+        writePlain(options, cracker);
+        cracker.restoreCracks();
+        System.err.println("Mask " + mask + ": " + mask.keyspace() + " candidates.");
+        try {
+            cracker.runMask(mask);
+        } finally {
+            cracker.close();
+            stats.close();
+            potfile.close();
+        }
+    }
+
+    // Compile mode: writes the dictionary as a CompiledWordList, which every program takes in place of the text.
+    private void compileDictionary(Options options) {
+        String target = options.get("compile", "");
+        if (options.positional().size() != 1 || target.isEmpty() || options.unknown("compile") != null) {
+            usage(compileUsage());
+        }
+        String dictionaryFile = options.positional().get(0);
+        requireReadable("Dictionary", dictionaryFile);
+        WordList dictionary = loadDictionary(dictionaryFile);
+        try {
+            int kept = CompiledWordList.compile(dictionary, Paths.get(target));
+            System.err.println("Compiled " + kept + " distinct words of " + dictionary.size() + " into " + target
+                    + ".");
+        } catch (IOException err) {
+            System.err.println("Error writing compiled dictionary: " + err.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Coordinator mode: runs the account stages here, then hands the dictionary stages out to --connect workers as
+    // leases.
+    private void runCoordinator(Options options) {
+        if (options.positional().size() != 2 || options.unknown("serve", "lease-timeout", "rules", "rule-order",
+                "potfile", "no-potfile", "plain", "progress", "no-progress") != null) {
+            usage(coordinatorUsage());
+        }
+        String dictionaryFile = options.positional().get(0);
+        String passwordFile = options.positional().get(1);
+        int port = parsePort("serve", options.get("serve", ""));
+        int leaseTimeout = parsePositive("lease-timeout", options.get("lease-timeout",
+                String.valueOf(Coordinator.DEFAULT_LEASE_TIMEOUT)), "number of seconds");
+        RuleOrder.Mode ruleOrderMode = parseRuleOrder(options);
+        requireReadable("Dictionary", dictionaryFile);
+        requireReadable("Password", passwordFile);
+
+        StageStats stats = openStats(options);
+        WordList dictionary = loadDictionary(dictionaryFile);
+        List<Account> accounts = loadAccounts(passwordFile);
+        String rulesFile = options.get("rules", null);
+        Mangler mangler = loadRules(rulesFile);
+        if (dictionary.isEmpty()) {
+            fail("Dictionary is empty.");
+        }
+        RuleOrder ruleOrder = ruleOrderMode == RuleOrder.Mode.ADAPTIVE ? new RuleOrder(mangler) : null;
+        Checkpoint checkpoint = new Checkpoint(null, () -> "coordinator"); // Cracks are only kept in the potfile
+        Potfile potfile = openPotfile(options, accounts);
+        Cracker cracker = new Cracker(accounts, dictionary, mangler, ruleOrder, schedulers.get(),
+                BatchVerifier.Engine.BITSLICE, KeySet.DEFAULT_WINDOW, false, checkpoint, potfile, stats);
+        writePlain(options, cracker);
+        cracker.restoreCracks();
+
+        Coordinator coordinator = new Coordinator(accounts, cracker.saltIndex(), Paths.get(dictionaryFile),
+                dictionary, rulesFile == null ? null : Paths.get(rulesFile), mangler, ruleOrder, stats, leaseTimeout,
+                (target, guess) -> cracker.markCracked(target, guess, -1), cracker::allCracked);
+        try {
+            cracker.runAccountStages();
+            if (!cracker.allCracked()) {
+                coordinator.run(port);
+            }
+        } catch (IOException err) {
+            fail("Cannot serve workers: " + err.getMessage());
+        } finally {
+            cracker.close();
+            stats.close();
+            potfile.close();
+        }
+    }
+
+    // Worker mode: cracks the leases a --serve coordinator hands out, with the accounts, rules and dictionary it
+    // sends.
+    private void runWorker(Options options) {
+        if (!options.positional().isEmpty()
+                || options.unknown("connect", "engine", "dedup-window", "no-key-filter", "pipeline", "ring-batches",
+                        "batch-keys") != null) {
+            usage(workerUsage());
+        }
+        String address = options.get("connect", "");
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            fail("--connect must be <host>:<port>, not '" + address + "'.");
+        }
+        int port = parsePort("connect", address.substring(colon + 1));
+        BatchVerifier.Engine engine = parseEngine(options);
+        Supplier<Scheduler> scheduler = parseScheduler(options);
+        int dedupWindow = parsePositive("dedup-window", options.get("dedup-window",
+                String.valueOf(KeySet.DEFAULT_WINDOW)), "number of keys");
+
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Cracker cracker = null;
+        String lost = null; // Why the connection to the coordinator was lost, if it was
+        try (Coordinator.Channel channel = new Coordinator.Channel(new Socket(address.substring(0, colon), port))) {
+            Coordinator.Hello hello = Coordinator.Hello.read(channel.in);
+            StageStats stats = new StageStats();
+            cracker = new Cracker(hello.accounts, hello.dictionary, hello.mangler, null, scheduler.get(), engine,
+                    dedupWindow, !options.has("no-key-filter"), new Checkpoint(null, () -> "worker"),
+                    Potfile.disabled(), stats); // The coordinator keeps the cracks
+            cracker.onCrack((hash, guess, position) -> {
+                try {
+                    channel.sendCrack(hash, guess, position);
+                } catch (IOException err) {
+                    System.err.println("Warning: Cannot report a crack to the coordinator: " + err.getMessage());
+                }
+            });
+            System.err.println("Connected to " + address + ": " + hello.accounts.size() + " accounts, "
+                    + hello.dictionary.size() + " words.");
+
+            BlockingQueue<Coordinator.Lease> leases = new LinkedBlockingQueue<>();
+            AtomicReference<IOException> readError = new AtomicReference<>();
+            Cracker receiver = cracker;
+            Thread reader = new Thread(() -> receiveLeases(channel, leases, receiver, readError), "coordinator");
+            reader.setDaemon(true);
+            reader.start();
+            heartbeats.scheduleAtFixedRate(() -> {
+                try {
+                    channel.sendHeartbeat(stats.total(StageStats.GUESSES), stats.total(StageStats.CRYPTS),
+                            stats.total(StageStats.DUPLICATES));
+                } catch (IOException err) {
+                    // The reader notices the lost connection
+                }
+            }, hello.heartbeat, hello.heartbeat, TimeUnit.SECONDS);
+
+            for (Coordinator.Lease lease = leases.take(); lease != NO_LEASE; lease = leases.take()) {
+                long[] queued = cracker.runLease(lease);
+                channel.sendFinished(lease.id, queued, stats.total(StageStats.GUESSES),
+                        stats.total(StageStats.CRYPTS), stats.total(StageStats.DUPLICATES));
+            }
+            if (readError.get() != null) {
+                throw readError.get();
+            }
+        } catch (IOException err) {
+            lost = err.getMessage();
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+        } finally {
+            heartbeats.shutdownNow();
+            if (cracker != null) {
+                cracker.close();
+            }
+        }
+        if (lost != null) {
+            fail("Lost connection to coordinator: " + lost);
+        }
+    }
+
+    // Runs on its own thread: queues each lease, applies cracks broadcast by the coordinator and ends at DONE. A lost
+    // connection also ends the leases, with the error left in readError for the main thread, which shuts down.
+    private static void receiveLeases(Coordinator.Channel channel, BlockingQueue<Coordinator.Lease> leases,
+            Cracker cracker, AtomicReference<IOException> readError) {
+        try {
+            while (true) {
+                byte type = channel.in.readByte();
+                if (type == Coordinator.LEASE) {
+                    leases.add(Coordinator.Lease.read(channel.in));
+                } else if (type == Coordinator.CRACKED) {
+                    cracker.dropCracked(channel.in.readUTF());
+                } else if (type == Coordinator.DONE) {
+                    leases.add(NO_LEASE);
+                    return;
+                } else {
+                    throw new IOException("unexpected message " + type);
+                }
+            }
+        } catch (IOException err) {
+            readError.set(err);
+            leases.add(NO_LEASE);
+        }
+    }
+
+    // A fresh checkpoint, written to --checkpoint if given, or the one --resume names.
+    private Checkpoint openCheckpoint(Options options, WordList dictionary, Mangler mangler, List<Account> accounts,
+            RuleOrder.Mode ruleOrderMode) {
+        // Only worked out when needed, since it reads the whole dictionary
+        Supplier<String> fingerprint = () -> Checkpoint.fingerprint(program, dictionary, Account.hashes(accounts),
+                "rules=" + Long.toHexString(mangler.checksum()) + " rule-order="
+                        + ruleOrderMode.name().toLowerCase());
+
+        String file = options.get("checkpoint", null);
+        if (file == null) {
+            if (options.has("resume")) {
+                fail("--resume needs --checkpoint=<file>.");
+            }
+            return new Checkpoint(null, fingerprint);
+        }
+        if (!options.has("resume")) {
+            return new Checkpoint(Paths.get(file), fingerprint);
+        }
+        try {
+            return Checkpoint.resume(Paths.get(file), fingerprint);
+        } catch (IOException err) {
+            fail("Cannot resume from checkpoint: " + err.getMessage());
+            return null;
+        }
+    }
+
+    // Keeps the passwords in the --plain file too, if given.
+    private static void writePlain(Options options, Cracker cracker) {
+        String file = options.get("plain", null);
+        if (file != null) {
+            cracker.writePlain(Paths.get(file));
+        }
+    }
+
+    // The --potfile (by default Potfile.DEFAULT_FILE) with the entries for these accounts, or a disabled one.
+    private static Potfile openPotfile(Options options, List<Account> accounts) {
+        if (options.has("no-potfile")) {
+            return Potfile.disabled();
+        }
+        String file = options.get("potfile", Potfile.DEFAULT_FILE);
+        try {
+            return Potfile.open(Paths.get(file), Account.hashes(accounts));
+        } catch (IOException err) {
+            System.err.println("Warning: Cannot use potfile " + file + ": " + err.getMessage());
+            return Potfile.disabled();
+        }
+    }
+
+    // Counters for the run, printed every --progress seconds unless --no-progress is given.
+    private static StageStats openStats(Options options) {
+        StageStats stats = new StageStats();
+        int interval = parsePositive("progress", options.get("progress", String.valueOf(StageStats.DEFAULT_INTERVAL)),
+                "number of seconds");
+        if (!options.has("no-progress")) {
+            stats.startReporting(interval);
+        }
+        return stats;
+    }
+
+    private static BatchVerifier.Engine parseEngine(Options options) {
+        BatchVerifier.Engine engine = BatchVerifier.Engine.parse(options.get("engine", "bitslice"));
+        if (engine == null) {
+            fail("Unknown engine '" + options.get("engine", "") + "'.");
+        }
+        if (!engine.isAvailable()) {
+            System.err.println("Warning: The vector engine needs java --add-modules jdk.incubator.vector;"
+                    + " using bitslice instead.");
+            return BatchVerifier.Engine.BITSLICE;
+        }
+        return engine;
+    }
+
+    // The program's schedulers, or with --pipeline ones that generate and hash on separate threads, as many of each
+    // as the program runs slices on.
+    private Supplier<Scheduler> parseScheduler(Options options) {
+        if (!options.has("pipeline")) {
+            if (options.has("ring-batches") || options.has("batch-keys")) {
+                fail("--ring-batches and --batch-keys need --pipeline.");
+            }
+            return schedulers;
+        }
+        int ringBatches = parsePositive("ring-batches", options.get("ring-batches",
+                String.valueOf(Pipeline.DEFAULT_RING_BATCHES)), "number of batches");
+        int batchKeys = parsePositive("batch-keys", options.get("batch-keys",
+                String.valueOf(Pipeline.DEFAULT_BATCH_KEYS)), "number of keys");
+        return () -> {
+            Scheduler program = schedulers.get();
+            int threads = program.threads();
+            program.close();
+            return Scheduler.pipeline(threads, ringBatches, batchKeys);
+        };
+    }
+
+    private static RuleOrder.Mode parseRuleOrder(Options options) {
+        RuleOrder.Mode mode = RuleOrder.Mode.parse(options.get("rule-order", "adaptive"));
+        if (mode == null) {
+            fail("Unknown rule order '" + options.get("rule-order", "") + "'.");
+        }
+        return mode;
+    }
+
+    private static int parsePort(String option, String value) {
+        int port = parsePositive(option, value, "port number");
+        if (port > 65535) {
+            fail("--" + option + " must be a port number up to 65535, not '" + value + "'.");
+        }
+        return port;
+    }
+
+    private static int parsePositive(String option, String value, String what) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException err) {
+            // Reported below
+        }
+        fail("--" + option + " must be a positive " + what + ", not '" + value + "'.");
+        return 0;
+    }
+
+    private static void requireReadable(String what, String file) {
+        if (!Files.isReadable(Paths.get(file))) {
+            fail(what + " file '" + file + "' not found or not readable.");
+        }
+    }
+
+    private static WordList loadDictionary(String file) {
+        try {
+            return WordList.open(Paths.get(file));
+        } catch (IOException err) {
+            System.err.println("Error reading dictionary file: " + err.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    // The rules in the --rules file, or the built-in ones without it.
+    private static Mangler loadRules(String file) {
+        if (file == null) {
+            return Mangler.DEFAULT;
+        }
+        try {
+            return Mangler.load(Paths.get(file));
+        } catch (IOException err) {
+            System.err.println("Error reading rules file: " + err.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static List<Account> loadAccounts(String file) {
+        try {
+            List<Account> accounts = Account.load(Paths.get(file));
+            if (accounts.isEmpty()) {
+                fail("No user entries loaded from password file.");
+            }
+            return accounts;
+        } catch (IOException err) {
+            System.err.println("Error reading password file: " + err.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static void fail(String message) {
+        System.err.println("Error: " + message);
+        System.exit(1);
+    }
+}
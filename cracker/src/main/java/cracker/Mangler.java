@@ -0,0 +1,482 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A set of single-word mangle rules, numbered so a candidate can be named by
+ * the rules that produced it.
+ *
+ * Rules are written one per line in a small John/hashcat-style language and
+ * compiled once into programs of opcodes, which run in place on a caller's
+ * char buffer and never allocate. Commands:
+ *
+ * <pre>
+ * :      do nothing             l u    lowercase, uppercase
+ * c C    capitalize (Word), the inverse (wORD)
+ * t TN   toggle the case of every character, of the one at N
+ * w W    alternate case starting upper (StRiNg), starting lower (sTrInG)
+ * r      reverse                d      duplicate
+ * f      reflect (word + reversed)
+ * { }    rotate left, right     [ ]    delete the first, the last character
+ * DN     delete at N            'N     truncate to N characters
+ * ^X $X  prepend, append X      iNX    insert X at N
+ * oNX    overwrite at N with X  sXY    replace every X with Y
+ * @X     delete every X
+ * &lt;N &gt;N  reject unless shorter, longer than N
+ * _N     reject unless N long   !X /X  reject if X is present, is absent
+ * </pre>
+ *
+ * N is 0-9 or A-Z for 10-35. X may be a class such as {@code [a-z0-9]}, which
+ * expands the line into one rule per character, in order; a backslash escapes
+ * the next character. Blank lines and lines starting with {@code #} are
+ * skipped. Thread-safe.
+ */
+final class Mangler {
+
+    /** The rules used when none are given: the mangles the crackers have always tried. */
+    static final Mangler DEFAULT = compile(List.of(
+            "^[a-zA-Z0-9]", "$[a-zA-Z0-9]", "[", "]", "r", "d", "f", "rf", "u", "l", "c", "C", "w", "W"));
+
+    // Adaptive ordering keeps counters and a queue entry per rule pair, and checkpoints the counters: 512 rules
+    // take about 11 MB of heap and 4 MB a checkpoint at level 2, where 2048 took 178 MB and 67 MB
+    static final int MAX_RULES = 512;
+    private static final int MAX_GROWTH = 64;
+
+    private final int[][] programs;
+    private final int growth; // maxOutput(length) = growth * length + extra
+    private final int extra;
+    private final long checksum;
+
+    private Mangler(int[][] programs, int growth, int extra, long checksum) {
+        this.programs = programs;
+        this.growth = growth;
+        this.extra = extra;
+        this.checksum = checksum;
+    }
+
+    /** Reads and compiles a rules file. */
+    static Mangler load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        try {
+            return compile(lines);
+        } catch (IllegalArgumentException err) {
+            throw new IOException(file + ": " + err.getMessage(), err);
+        }
+    }
+
+    /** Compiles rule lines; throws IllegalArgumentException naming the line of any error. */
+    static Mangler compile(List<String> lines) {
+        List<int[]> programs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).stripLeading(); // Not trailing, which may be an argument: "$ "
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                new Parser(line).expand(new int[line.length()], 0, 0, programs);
+            } catch (IllegalArgumentException err) {
+                throw new IllegalArgumentException("line " + (i + 1) + ": " + err.getMessage() + " in '" + line + "'");
+            }
+        }
+
+        int growth = 1;
+        int extra = 0;
+        CRC32 crc = new CRC32();
+        for (int[] program : programs) {
+            int ruleGrowth = 1;
+            int ruleExtra = 0;
+            for (int pc = 0; pc < program.length; pc += 1 + arity(program[pc])) {
+                switch (program[pc]) {
+                    case 'd':
+                    case 'f':
+                        ruleGrowth *= 2;
+                        ruleExtra *= 2;
+                        break;
+                    case '^':
+                    case '$':
+                    case 'i':
+                        ruleExtra++;
+                        break;
+                    default:
+                        break;
+                }
+                // Later commands can shorten the word again, so the bound covers every step
+                growth = Math.max(growth, ruleGrowth);
+                extra = Math.max(extra, ruleExtra);
+            }
+            for (int op : program) {
+                crc.update(op >>> 8);
+                crc.update(op);
+            }
+            crc.update('\n');
+        }
+        return new Mangler(programs.toArray(new int[0][]), growth, extra, crc.getValue());
+    }
+
+    /** The number of rules; rules are numbered from 0. */
+    int ruleCount() {
+        return programs.length;
+    }
+
+    /** The number of rule chains each word goes through at a mangle level: 1, then the rules, then every pair. */
+    long chainCount(int mangleLevel) {
+        long rules = programs.length;
+        return mangleLevel == 0 ? 1 : mangleLevel == 1 ? rules : rules * rules;
+    }
+
+    /** Identifies the compiled rules, so a checkpoint is only resumed with the same ones. */
+    long checksum() {
+        return checksum;
+    }
+
+    /** Longest output, and intermediate, any rule can produce from a word of the given length. */
+    int maxOutput(int length) {
+        return growth * length + extra;
+    }
+
+    /**
+     * True if the rule can give a word of this length a different crypt key,
+     * i.e. it does not only touch characters past the 8th.
+     */
+    boolean canChangeKey(int rule, int length) {
+        int[] program = programs[rule];
+        for (int pc = 0; pc < program.length; pc += 1 + arity(program[pc])) {
+            int n = arity(program[pc]) > 0 ? program[pc + 1] : 0;
+            switch (program[pc]) {
+                case '$':
+                    if (length < 8) return true;
+                    length++;
+                    break;
+                case 'd':
+                case 'f':
+                    if (length < 8) return true;
+                    length *= 2;
+                    break;
+                case ']':
+                    if (length <= 8) return true;
+                    length--;
+                    break;
+                case 'D':
+                    if (n >= length) break;
+                    if (n < 8) return true;
+                    length--;
+                    break;
+                case '\'':
+                    if (n >= length) break;
+                    if (n < 8) return true;
+                    length = n;
+                    break;
+                case 'i':
+                    if (n > length) break;
+                    if (n < 8) return true;
+                    length++;
+                    break;
+                case 'o':
+                case 'T':
+                    if (n < 8 && n < length) return true;
+                    break;
+                case '<':
+                case '>':
+                case '_':
+                case '!':
+                case '/':
+                    break; // Only reject
+                default:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies a rule to {@code src[0..length)}, writing the result to {@code dst}
+     * (which must not be {@code src} and must hold {@link #maxOutput} chars).
+     * Returns the result length, 0 if the rule rejects the word.
+     */
+    int apply(int rule, char[] src, int length, char[] dst) {
+        System.arraycopy(src, 0, dst, 0, length);
+        int[] program = programs[rule];
+        int pc = 0;
+        while (pc < program.length) {
+            int op = program[pc++];
+            switch (op) {
+                case 'l':
+                    for (int i = 0; i < length; i++) dst[i] = Character.toLowerCase(dst[i]);
+                    break;
+                case 'u':
+                    for (int i = 0; i < length; i++) dst[i] = Character.toUpperCase(dst[i]);
+                    break;
+                case 'c':
+                case 'C':
+                    boolean upper = op == 'c';
+                    for (int i = 0; i < length; i++) {
+                        dst[i] = (i == 0) == upper ? Character.toUpperCase(dst[i]) : Character.toLowerCase(dst[i]);
+                    }
+                    break;
+                case 't':
+                    for (int i = 0; i < length; i++) dst[i] = toggle(dst[i]);
+                    break;
+                case 'T':
+                    int at = program[pc++];
+                    if (at < length) dst[at] = toggle(dst[at]);
+                    break;
+                case 'w':
+                case 'W':
+                    boolean upperFirst = op == 'w';
+                    for (int i = 0; i < length; i++) {
+                        char c = dst[i];
+                        if (Character.isLetter(c)) {
+                            boolean shouldBeUpper = (i % 2 == 0) == upperFirst;
+                            dst[i] = shouldBeUpper ? Character.toUpperCase(c) : Character.toLowerCase(c);
+                        }
+                    }
+                    break;
+                case 'r':
+                    for (int i = 0, j = length - 1; i < j; i++, j--) {
+                        char c = dst[i];
+                        dst[i] = dst[j];
+                        dst[j] = c;
+                    }
+                    break;
+                case 'd':
+                    System.arraycopy(dst, 0, dst, length, length);
+                    length *= 2;
+                    break;
+                case 'f':
+                    for (int i = 0; i < length; i++) dst[length + i] = dst[length - 1 - i];
+                    length *= 2;
+                    break;
+                case '{':
+                    if (length > 0) {
+                        char c = dst[0];
+                        System.arraycopy(dst, 1, dst, 0, length - 1);
+                        dst[length - 1] = c;
+                    }
+                    break;
+                case '}':
+                    if (length > 0) {
+                        char c = dst[length - 1];
+                        System.arraycopy(dst, 0, dst, 1, length - 1);
+                        dst[0] = c;
+                    }
+                    break;
+                case '[':
+                    if (length == 0) return 0;
+                    System.arraycopy(dst, 1, dst, 0, --length);
+                    break;
+                case ']':
+                    if (length == 0) return 0;
+                    length--;
+                    break;
+                case 'D':
+                    int delete = program[pc++];
+                    if (delete < length) System.arraycopy(dst, delete + 1, dst, delete, --length - delete);
+                    break;
+                case '\'':
+                    length = Math.min(length, program[pc++]);
+                    break;
+                case '^':
+                    System.arraycopy(dst, 0, dst, 1, length++);
+                    dst[0] = (char) program[pc++];
+                    break;
+                case '$':
+                    dst[length++] = (char) program[pc++];
+                    break;
+                case 'i':
+                    int insert = program[pc++];
+                    char inserted = (char) program[pc++];
+                    if (insert <= length) {
+                        System.arraycopy(dst, insert, dst, insert + 1, length++ - insert);
+                        dst[insert] = inserted;
+                    }
+                    break;
+                case 'o':
+                    int overwrite = program[pc++];
+                    char written = (char) program[pc++];
+                    if (overwrite < length) dst[overwrite] = written;
+                    break;
+                case 's':
+                    char from = (char) program[pc++];
+                    char to = (char) program[pc++];
+                    for (int i = 0; i < length; i++) {
+                        if (dst[i] == from) dst[i] = to;
+                    }
+                    break;
+                case '@':
+                    char purged = (char) program[pc++];
+                    int kept = 0;
+                    for (int i = 0; i < length; i++) {
+                        if (dst[i] != purged) dst[kept++] = dst[i];
+                    }
+                    length = kept;
+                    break;
+                case '<':
+                    if (length >= program[pc++]) return 0;
+                    break;
+                case '>':
+                    if (length <= program[pc++]) return 0;
+                    break;
+                case '_':
+                    if (length != program[pc++]) return 0;
+                    break;
+                case '!':
+                case '/':
+                    char wanted = (char) program[pc++];
+                    boolean present = false;
+                    for (int i = 0; i < length && !present; i++) present = dst[i] == wanted;
+                    if (present == (op == '!')) return 0;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + op);
+            }
+        }
+        return length;
+    }
+
+    private static char toggle(char c) {
+        return Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c);
+    }
+
+    // Arguments each command takes, or -1 for an unknown command
+    private static int arity(int op) {
+        switch (op) {
+            case 'l': case 'u': case 'c': case 'C': case 't': case 'w': case 'W': case 'r': case 'd': case 'f':
+            case '{': case '}': case '[': case ']':
+                return 0;
+            case 'T': case 'D': case '\'': case '^': case '$': case '@': case '<': case '>': case '_': case '!':
+            case '/':
+                return 1;
+            case 'i': case 'o': case 's':
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    // Whether the command's arguments are positions (N) rather than characters (X), per argument
+    private static boolean isPosition(int op, int argument) {
+        switch (op) {
+            case 'T': case 'D': case '\'': case '<': case '>': case '_':
+                return true;
+            case 'i': case 'o':
+                return argument == 0;
+            default:
+                return false;
+        }
+    }
+
+    /** Compiles one rule line, expanding its character classes into one program each. */
+    private static final class Parser {
+        private final String line;
+
+        Parser(String line) {
+            this.line = line;
+        }
+
+        // Compiles line[at..] after the program so far, code[0..length), adding every expansion to programs
+        void expand(int[] code, int length, int at, List<int[]> programs) {
+            while (at < line.length() && (line.charAt(at) == ' ' || line.charAt(at) == ':')) {
+                at++;
+            }
+            if (at == line.length()) {
+                if (programs.size() == MAX_RULES) {
+                    throw new IllegalArgumentException("more than " + MAX_RULES + " rules");
+                }
+                int growth = 1;
+                for (int pc = 0; pc < length; pc += 1 + arity(code[pc])) {
+                    if ((code[pc] == 'd' || code[pc] == 'f') && (growth *= 2) > MAX_GROWTH) {
+                        throw new IllegalArgumentException("a rule makes words over " + MAX_GROWTH + " times longer");
+                    }
+                }
+                programs.add(Arrays.copyOf(code, length));
+                return;
+            }
+            char op = line.charAt(at++);
+            int arity = arity(op);
+            if (arity < 0) {
+                throw new IllegalArgumentException("unknown command '" + op + "'");
+            }
+            code[length++] = op;
+            arguments(op, 0, arity, code, length, at, programs);
+        }
+
+        private void arguments(char op, int argument, int arity, int[] code, int length, int at,
+                List<int[]> programs) {
+            if (argument == arity) {
+                expand(code, length, at, programs);
+                return;
+            }
+            if (at == line.length()) {
+                throw new IllegalArgumentException("'" + op + "' is missing an argument");
+            }
+            char c = line.charAt(at);
+            if (isPosition(op, argument)) {
+                code[length] = position(c);
+                arguments(op, argument + 1, arity, code, length + 1, at + 1, programs);
+            } else if (c == '[') {
+                int close = classEnd(at);
+                for (char member : members(at + 1, close)) {
+                    code[length] = member;
+                    arguments(op, argument + 1, arity, code, length + 1, close + 1, programs);
+                }
+            } else if (c == '\\') {
+                if (at + 1 == line.length()) {
+                    throw new IllegalArgumentException("'\\' at the end of the line");
+                }
+                code[length] = line.charAt(at + 1);
+                arguments(op, argument + 1, arity, code, length + 1, at + 2, programs);
+            } else {
+                code[length] = c;
+                arguments(op, argument + 1, arity, code, length + 1, at + 1, programs);
+            }
+        }
+
+        private static int position(char c) {
+            if (c >= '0' && c <= '9') return c - '0';
+            if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+            throw new IllegalArgumentException("'" + c + "' is not a position (0-9, A-Z)");
+        }
+
+        private int classEnd(int open) {
+            for (int i = open + 1; i < line.length(); i++) {
+                if (line.charAt(i) == '\\') {
+                    i++;
+                } else if (line.charAt(i) == ']') {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("unclosed '['");
+        }
+
+        // The characters of the class between from and to, ranges such as a-z expanded, in order
+        private List<Character> members(int from, int to) {
+            List<Character> members = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                char c = line.charAt(i);
+                if (c == '\\') {
+                    c = line.charAt(++i);
+                } else if (i + 2 < to && line.charAt(i + 1) == '-') {
+                    char last = line.charAt(i + 2);
+                    if (last < c) {
+                        throw new IllegalArgumentException("backward range " + c + "-" + last);
+                    }
+                    for (char member = c; member <= last; member++) members.add(member);
+                    i += 2;
+                    continue;
+                }
+                members.add(c);
+            }
+            if (members.isEmpty()) {
+                throw new IllegalArgumentException("empty class '[]'");
+            }
+            return members;
+        }
+    }
+}
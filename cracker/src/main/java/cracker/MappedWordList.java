@@ -0,0 +1,194 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A text dictionary, one word per line, read in place from a memory-mapped file.
+ *
+ * Nothing is decoded up front: a background thread scans the mapping for line
+ * ends and records each line's start offset in pages of a {@code long} array,
+ * publishing them in batches so callers can work on the first words while the
+ * rest of the file is still being indexed. Words are decoded straight from the
+ * mapping into caller buffers. Lines end at {@code \n}, a trailing {@code \r} is
+ * dropped, and bytes are decoded as UTF-8; pure ASCII words, the usual case, are
+ * copied byte by byte without allocating. Thread-safe.
+ */
+final class MappedWordList implements WordList {
+
+    private static final int SEGMENT_BITS = 30; // Mapped in 1 GiB segments, since a mapping is int-indexed
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+    private static final int PUBLISH_EVERY = 1024;
+
+    private final MappedByteBuffer[] segments;
+    private final long fileSize;
+    private final long[][] pages; // Line start offsets; word i spans starts i to i + 1, less the line end
+    private volatile int indexed; // Words whose start and end offsets are both recorded
+    private volatile boolean complete;
+
+    private MappedWordList(MappedByteBuffer[] segments, long fileSize) {
+        this.segments = segments;
+        this.fileSize = fileSize;
+        // At most one line per byte, plus a final one without a line end
+        this.pages = new long[(int) ((fileSize + 2) >>> PAGE_BITS) + 1][];
+    }
+
+    /** Maps the file and starts indexing it in the background. */
+    static MappedWordList open(Path file) throws IOException {
+        MappedWordList words;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            words = new MappedWordList(map(channel), channel.size());
+        }
+        Thread indexer = new Thread(words::index, "dictionary-index");
+        indexer.setDaemon(true);
+        indexer.start();
+        return words;
+    }
+
+    @Override
+    public boolean await(int index) {
+        if (index < indexed) {
+            return true;
+        }
+        synchronized (this) {
+            while (index >= indexed && !complete) {
+                try {
+                    wait();
+                } catch (InterruptedException err) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return index < indexed;
+    }
+
+    @Override
+    public int available() {
+        return indexed;
+    }
+
+    @Override
+    public int size() {
+        await(Integer.MAX_VALUE);
+        return indexed;
+    }
+
+    @Override
+    public int maxLength(int index) {
+        return (int) (end(index) - start(index));
+    }
+
+    @Override
+    public int getChars(int index, char[] dst) {
+        long start = start(index);
+        long end = end(index);
+        for (long offset = start; offset < end; offset++) {
+            byte b = byteAt(offset);
+            if (b < 0) {
+                String word = get(index); // Not ASCII, so decode it properly
+                word.getChars(0, word.length(), dst, 0);
+                return word.length();
+            }
+            dst[(int) (offset - start)] = (char) b;
+        }
+        return (int) (end - start);
+    }
+
+    @Override
+    public String get(int index) {
+        long start = start(index);
+        byte[] bytes = new byte[(int) (end(index) - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        for (MappedByteBuffer segment : segments) {
+            crc.update(segment.duplicate());
+        }
+        return crc.getValue();
+    }
+
+    private long start(int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    // Exclusive end of the word: the byte before the next line's start, less a \r before that
+    private long end(int index) {
+        long end = start(index + 1) - 1;
+        if (end > start(index) && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+
+    private byte byteAt(long offset) {
+        return byteAt(segments, offset);
+    }
+
+    /** Maps a whole file read-only, as segments for {@link #byteAt(MappedByteBuffer[], long)}. */
+    static MappedByteBuffer[] map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_BITS;
+            long length = Math.min(size - start, 1L << SEGMENT_BITS);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+        return segments;
+    }
+
+    static byte byteAt(MappedByteBuffer[] segments, long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    private void index() {
+        int lines = 0;
+        setStart(0, 0);
+        try {
+            for (int s = 0; s < segments.length; s++) {
+                MappedByteBuffer segment = segments[s];
+                long base = (long) s << SEGMENT_BITS;
+                for (int i = 0, limit = segment.limit(); i < limit; i++) {
+                    if (segment.get(i) == '\n') {
+                        setStart(++lines, base + i + 1);
+                        if (lines % PUBLISH_EVERY == 0) {
+                            publish(lines, false);
+                        }
+                    }
+                }
+            }
+            if (start(lines) < fileSize) {
+                setStart(++lines, fileSize + 1); // Last line has no line end
+            }
+        } finally {
+            publish(lines, true);
+        }
+    }
+
+    private void setStart(int line, long offset) {
+        long[] page = pages[line >>> PAGE_BITS];
+        if (page == null) {
+            page = pages[line >>> PAGE_BITS] = new long[1 << PAGE_BITS];
+        }
+        page[line & PAGE_MASK] = offset;
+    }
+
+    private synchronized void publish(int words, boolean done) {
+        indexed = words;
+        complete = done;
+        notifyAll();
+    }
+}
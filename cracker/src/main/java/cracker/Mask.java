@@ -0,0 +1,202 @@
+package cracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A brute-force mask such as {@code ?l?l?l?d?d}: a character class per
+ * position, tried at one length or, with an increment range, at each length
+ * from the shortest to the longest as a prefix of the mask.
+ *
+ * Candidates are numbered 0 to {@link #keyspace} - 1, shorter lengths first
+ * and the last position counting fastest, so any contiguous slice of that
+ * index space can go to a worker. A {@link Cursor} walks its slice
+ * odometer-style in one char buffer, updating the crypt key a position at a
+ * time, and never allocates. A mask has at most eight positions, since crypt
+ * reads no further. Classes: {@code ?l} a-z, {@code ?u} A-Z, {@code ?d} 0-9,
+ * {@code ?s} printable symbols and space, {@code ?a} all of these, and
+ * {@code ??} a literal question mark; any other character stands for itself.
+ * Thread-safe.
+ */
+final class Mask {
+
+    static final int MAX_POSITIONS = 8;
+
+    private static final String LOWER = "abcdefghijklmnopqrstuvwxyz";
+    private static final String UPPER = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String DIGITS = "0123456789";
+    private static final String SYMBOLS = " !\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+
+    private final String pattern;
+    private final char[][] classes;
+    private final int minLength;
+    private final long[] lengthStart; // Index of the first candidate of each length from minLength, then keyspace
+
+    private Mask(String pattern, char[][] classes, int minLength, int maxLength) {
+        this.pattern = pattern;
+        this.classes = classes;
+        this.minLength = minLength;
+        this.lengthStart = new long[maxLength - minLength + 2];
+        for (int length = minLength; length <= maxLength; length++) {
+            long candidates = 1;
+            for (int position = 0; position < length; position++) {
+                candidates *= classes[position].length;
+            }
+            lengthStart[length - minLength + 1] = lengthStart[length - minLength] + candidates;
+        }
+    }
+
+    /**
+     * Parses a mask and an increment: null to try only the mask's full length,
+     * empty to try every length from 1, or {@code min-max}. Throws
+     * IllegalArgumentException if either is malformed.
+     */
+    static Mask parse(String pattern, String increment) {
+        List<char[]> classes = new ArrayList<>();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '?') {
+                classes.add(new char[] { c });
+                continue;
+            }
+            if (++i == pattern.length()) {
+                throw new IllegalArgumentException("mask ends in '?'");
+            }
+            switch (pattern.charAt(i)) {
+                case 'l': classes.add(LOWER.toCharArray()); break;
+                case 'u': classes.add(UPPER.toCharArray()); break;
+                case 'd': classes.add(DIGITS.toCharArray()); break;
+                case 's': classes.add(SYMBOLS.toCharArray()); break;
+                case 'a': classes.add((LOWER + UPPER + DIGITS + SYMBOLS).toCharArray()); break;
+                case '?': classes.add(new char[] { '?' }); break;
+                default:
+                    throw new IllegalArgumentException("unknown class '?" + pattern.charAt(i) + "' in mask");
+            }
+        }
+        for (char[] chars : classes) {
+            if (chars[0] >= 0x80) {
+                throw new IllegalArgumentException("'" + chars[0] + "' in mask is not ASCII");
+            }
+        }
+        if (classes.isEmpty() || classes.size() > MAX_POSITIONS) {
+            throw new IllegalArgumentException("a mask has 1 to " + MAX_POSITIONS
+                    + " positions, since crypt reads no more characters");
+        }
+
+        int minLength = classes.size();
+        int maxLength = classes.size();
+        if (increment != null && increment.isEmpty()) {
+            minLength = 1;
+        } else if (increment != null) {
+            String[] bounds = increment.split("-", -1);
+            try {
+                if (bounds.length != 2) throw new NumberFormatException();
+                minLength = Integer.parseInt(bounds[0]);
+                maxLength = Integer.parseInt(bounds[1]);
+            } catch (NumberFormatException err) {
+                throw new IllegalArgumentException("increment must be <min>-<max>, not '" + increment + "'");
+            }
+            if (minLength < 1 || minLength > maxLength || maxLength > classes.size()) {
+                throw new IllegalArgumentException("increment " + increment + " is not within 1-" + classes.size());
+            }
+        }
+        return new Mask(pattern, classes.toArray(new char[0][]), minLength, maxLength);
+    }
+
+    /** The number of candidates at all lengths. */
+    long keyspace() {
+        return lengthStart[lengthStart.length - 1];
+    }
+
+    /** The mask with its lengths, for messages. */
+    @Override
+    public String toString() {
+        int maxLength = minLength + lengthStart.length - 2;
+        return pattern + (minLength == maxLength ? "" : ", lengths " + minLength + "-" + maxLength);
+    }
+
+    /** Walks the candidates {@code [from, to)}. */
+    Cursor cursor(long from, long to) {
+        return new Cursor(from, to);
+    }
+
+    /** The text of the candidate at an index, as given by {@link Cursor#position()}. */
+    String guessAt(long index) {
+        Cursor cursor = new Cursor(index, index + 1);
+        cursor.next();
+        return new String(cursor.guess, 0, cursor.length);
+    }
+
+    /** Candidates of one slice in index order. Not thread-safe. */
+    final class Cursor {
+        private final char[] guess = new char[MAX_POSITIONS];
+        private final int[] digits = new int[MAX_POSITIONS];
+        private final long end;
+        private long index;
+        private long nextLengthStart = -1; // Where the odometer wraps and the length grows
+        private int length;
+        private long key;
+
+        private Cursor(long from, long to) {
+            this.index = from - 1;
+            this.end = Math.min(to, keyspace());
+        }
+
+        /** Advances to the next candidate; false once the slice is exhausted. */
+        boolean next() {
+            if (++index >= end) {
+                return false;
+            }
+            if (index == nextLengthStart || nextLengthStart < 0) {
+                seek();
+                return true;
+            }
+            for (int position = length - 1; ; position--) {
+                char[] chars = classes[position];
+                int digit = digits[position] + 1;
+                if (digit == chars.length) {
+                    digit = 0; // Carries into the position before
+                }
+                digits[position] = digit;
+                set(position, chars[digit]);
+                if (digit != 0) {
+                    return true;
+                }
+            }
+        }
+
+        /** The {@link jcrypt#canonicalKey} of the current candidate. */
+        long key() {
+            return key;
+        }
+
+        /** The index of the current candidate. */
+        long position() {
+            return index;
+        }
+
+        // Decodes the index into the odometer, from scratch
+        private void seek() {
+            int lengthIndex = 0;
+            while (lengthStart[lengthIndex + 1] <= index) {
+                lengthIndex++;
+            }
+            length = minLength + lengthIndex;
+            nextLengthStart = lengthStart[lengthIndex + 1];
+            long offset = index - lengthStart[lengthIndex];
+            key = 0;
+            for (int position = length - 1; position >= 0; position--) {
+                char[] chars = classes[position];
+                digits[position] = (int) (offset % chars.length);
+                offset /= chars.length;
+                set(position, chars[digits[position]]);
+            }
+        }
+
+        private void set(int position, char c) {
+            guess[position] = c;
+            int shift = 7 * position;
+            key = key & ~(0x7fL << shift) | (long) (c & 0x7f) << shift;
+        }
+    }
+}
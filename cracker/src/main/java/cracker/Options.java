@@ -0,0 +1,53 @@
+package cracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line split into {@code --name=value} / {@code --flag} options and
+ * positional arguments, in the order given.
+ */
+final class Options {
+
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> named = new HashMap<>();
+
+    Options(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.length() > 2) {
+                int eq = arg.indexOf('=');
+                if (eq < 0) {
+                    named.put(arg.substring(2), "");
+                } else {
+                    named.put(arg.substring(2, eq), arg.substring(eq + 1));
+                }
+            } else {
+                positional.add(arg);
+            }
+        }
+    }
+
+    List<String> positional() {
+        return positional;
+    }
+
+    boolean has(String name) {
+        return named.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return named.getOrDefault(name, defaultValue);
+    }
+
+    /** Returns the first option name not in {@code known}, or null if all are recognised. */
+    String unknown(String... known) {
+        for (String name : named.keySet()) {
+            if (!List.of(known).contains(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package cracker;
+
+/**
+ * Breadth-first cracker on a single thread: usernames, mangled usernames, then
+ * every dictionary word at one mangle level before the next. See
+ * {@link Launcher} for the options and other modes.
+ */
+public class PasswordCrack {
+
+    public static void main(String[] args) {
+        new Launcher("PasswordCrack", Scheduler::sequential, false).run(args);
+    }
+}
@@ -0,0 +1,13 @@
+package cracker;
+
+/**
+ * Depth-first cracker on a single thread: usernames, mangled usernames, then
+ * every mangle level of a dictionary word before the next word. See
+ * {@link Launcher} for the options and other modes.
+ */
+public class PasswordCrackDepthFirst {
+
+    public static void main(String[] args) {
+        new Launcher("PasswordCrackDepthFirst", Scheduler::sequential, true).run(args);
+    }
+}
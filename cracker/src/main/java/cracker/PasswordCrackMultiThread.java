@@ -0,0 +1,14 @@
+package cracker;
+
+/**
+ * Breadth-first cracker on every processor: the same stages as
+ * {@link PasswordCrack}, each split over a fork/join pool. See
+ * {@link Launcher} for the options and other modes.
+ */
+public class PasswordCrackMultiThread {
+
+    public static void main(String[] args) {
+        new Launcher("PasswordCrackMultiThread",
+                () -> Scheduler.forkJoin(Runtime.getRuntime().availableProcessors()), false).run(args);
+    }
+}
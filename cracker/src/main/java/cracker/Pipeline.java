@@ -0,0 +1,285 @@
+package cracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A {@link Scheduler} that generates guesses and hashes them on different
+ * threads, so that hashing never waits for generation to mangle words, check
+ * them against the tried keys or collect garbage.
+ *
+ * Each producer runs slices and fills preallocated batches of keys and
+ * positions in a ring that only it writes; one hashing thread per ring drains
+ * the batches into its verifier, and matches are claimed and reported from
+ * there. A producer that gets a whole ring ahead of its hasher waits for it,
+ * so the ring's size bounds how far generation runs ahead. Slices are handed
+ * out from a shared cursor in index order.
+ *
+ * Producers are virtual threads, which park cheaply while their rings are
+ * full and leave the carrier threads to the hashers. They live as long as
+ * the pipeline, each bound to its ring, so that per-thread state such as a
+ * worker's counters is made once rather than once per run.
+ *
+ * Stages that hash outside a verifier, the usernames, hash on the producers.
+ */
+final class Pipeline implements Scheduler {
+
+    static final int DEFAULT_RING_BATCHES = 8;
+    static final int DEFAULT_BATCH_KEYS = 1024;
+
+    private final Ring[] rings;
+    private final ExecutorService producers;
+    private final ThreadLocal<Ring> producerRing = new ThreadLocal<>();
+    private final List<Thread> hashers = new ArrayList<>();
+    private volatile boolean closed;
+
+    Pipeline(int threads, int ringBatches, int batchKeys) {
+        rings = new Ring[threads];
+        for (int i = 0; i < threads; i++) {
+            rings[i] = new Ring(ringBatches, batchKeys);
+        }
+        // Each producer writes only its own ring; a replacement for one that died takes the ring over
+        AtomicInteger created = new AtomicInteger();
+        ThreadFactory virtual = Thread.ofVirtual().name("producer-", 0).factory();
+        producers = Executors.newFixedThreadPool(threads, task -> {
+            int index = created.getAndIncrement() % threads;
+            return virtual.newThread(() -> {
+                producerRing.set(rings[index]);
+                task.run();
+            });
+        });
+    }
+
+    @Override
+    public void open(Supplier<Sink> sinks) {
+        if (!hashers.isEmpty()) {
+            throw new IllegalStateException("Pipeline already open");
+        }
+        for (int i = 0; i < rings.length; i++) {
+            Ring ring = rings[i];
+            Thread thread = new Thread(() -> ring.drain(sinks.get()), "hasher-" + i);
+            thread.setDaemon(true);
+            hashers.add(thread);
+            thread.start();
+        }
+    }
+
+    @Override
+    public Sink sink() {
+        return producerRing.get();
+    }
+
+    @Override
+    public void run(long from, long to, long slice, Task task) {
+        if (from >= to) {
+            return;
+        }
+        if (hashers.isEmpty()) {
+            throw new IllegalStateException("Pipeline not open");
+        }
+        AtomicLong cursor = new AtomicLong(from);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int i = 0; i < rings.length; i++) {
+            runs.add(producers.submit(() -> {
+                try {
+                    for (long start = cursor.getAndAdd(slice); start < to; start = cursor.getAndAdd(slice)) {
+                        task.run(start, Math.min(start + slice, to));
+                    }
+                } finally {
+                    producerRing.get().publish(); // The last batch is seldom full
+                }
+            }));
+        }
+        for (Future<?> run : runs) {
+            join(run);
+        }
+        for (Ring ring : rings) {
+            ring.awaitDrained();
+        }
+    }
+
+    @Override
+    public int threads() {
+        return rings.length;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        producers.shutdownNow();
+        for (Thread hasher : hashers) {
+            LockSupport.unpark(hasher);
+        }
+    }
+
+    // Waits for a producer's run, rethrowing whatever it threw.
+    private static void join(Future<?> run) {
+        try {
+            run.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a producer", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Guesses on their way to a hasher, and the slices they finish. */
+    private static final class Batch {
+        final long[] keys;
+        final long[] positions;
+        final List<int[]> slices = new ArrayList<>();
+        int size;
+
+        Batch(int capacity) {
+            keys = new long[capacity];
+            positions = new long[capacity];
+        }
+    }
+
+    /**
+     * A single-producer, single-consumer ring of batches. Each side only
+     * advances its own counter, and parks when the ring is full or empty after
+     * announcing itself; the other side wakes it after advancing. Announcing
+     * before checking again, and advancing before looking for a waiter, are
+     * volatile accesses both, so a wakeup is never missed.
+     */
+    private final class Ring implements Sink {
+        private final Batch[] batches;
+        private final int mask;
+        private volatile long published; // Batches handed to the hasher; written by the producer only
+        private volatile long drained; // Batches the hasher is done with; written by the hasher only
+        private volatile Thread waitingProducer;
+        private volatile Thread waitingHasher;
+        private volatile Thread waitingRun;
+        private volatile Throwable failure; // What stopped the hasher
+        private Batch filling; // The producer's batch, not published yet
+
+        Ring(int ringBatches, int batchKeys) {
+            int capacity = ringBatches <= 1 ? 1 : Integer.highestOneBit(ringBatches - 1) << 1;
+            batches = new Batch[capacity];
+            for (int i = 0; i < capacity; i++) {
+                batches[i] = new Batch(batchKeys);
+            }
+            mask = capacity - 1;
+        }
+
+        @Override
+        public void add(long key, long position) {
+            Batch batch = filling();
+            batch.keys[batch.size] = key;
+            batch.positions[batch.size] = position;
+            if (++batch.size == batch.keys.length) {
+                publish();
+            }
+        }
+
+        @Override
+        public void finished(int[] slice) {
+            filling().slices.add(slice);
+        }
+
+        // Hands the batch being filled, if any, to the hasher.
+        void publish() {
+            if (filling == null) {
+                return;
+            }
+            filling = null;
+            published = published + 1;
+            wake(waitingHasher);
+        }
+
+        // The producer's batch, waiting for a free one while the ring is full.
+        private Batch filling() {
+            if (filling == null) {
+                while (published - drained == batches.length) {
+                    checkHasher();
+                    waitingProducer = Thread.currentThread();
+                    if (published - drained == batches.length) {
+                        LockSupport.park(this);
+                    }
+                    waitingProducer = null;
+                }
+                filling = batches[(int) published & mask];
+            }
+            return filling;
+        }
+
+        // The hasher's loop: every published batch into the sink, until the pipeline closes.
+        void drain(Sink sink) {
+            try {
+                while (true) {
+                    while (drained == published) {
+                        if (closed) {
+                            return;
+                        }
+                        waitingHasher = Thread.currentThread();
+                        if (drained == published && !closed) {
+                            LockSupport.park(this);
+                        }
+                        waitingHasher = null;
+                    }
+                    Batch batch = batches[(int) drained & mask];
+                    for (int i = 0; i < batch.size; i++) {
+                        sink.add(batch.keys[i], batch.positions[i]);
+                    }
+                    for (int[] slice : batch.slices) {
+                        sink.finished(slice);
+                    }
+                    batch.size = 0;
+                    batch.slices.clear();
+                    drained = drained + 1;
+                    wake(waitingProducer);
+                    if (drained == published) {
+                        wake(waitingRun);
+                    }
+                }
+            } catch (Throwable e) {
+                failure = e;
+                wake(waitingProducer);
+                wake(waitingRun);
+                throw e;
+            }
+        }
+
+        // Waits until the hasher has taken in every published batch.
+        void awaitDrained() {
+            while (drained != published) {
+                checkHasher();
+                waitingRun = Thread.currentThread();
+                if (drained != published && failure == null) {
+                    LockSupport.park(this);
+                }
+                waitingRun = null;
+            }
+        }
+
+        private void checkHasher() {
+            if (failure != null) {
+                throw new IllegalStateException("Hashing thread failed", failure);
+            }
+        }
+
+        private void wake(Thread thread) {
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
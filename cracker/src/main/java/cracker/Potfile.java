@@ -0,0 +1,130 @@
+package cracker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only file of cracked hashes, one {@code hash:password} line each,
+ * kept across runs so a hash is only ever cracked once.
+ *
+ * Only entries for the hashes being cracked are loaded, and only if the
+ * password still crypts to the hash, so a stale or damaged line can never mark
+ * a user cracked. New entries are appended under an exclusive lock on the whole
+ * file at its current end, so any number of cracker processes can share one
+ * potfile. A line torn by a crash is ended before the next entry
+ * is written after it. Thread-safe.
+ */
+final class Potfile {
+
+    static final String DEFAULT_FILE = "cracked.pot";
+
+    private static final int HASH_LENGTH = 13;
+
+    private final Path file;
+    private final Map<String, String> known = new HashMap<>();
+    private FileChannel channel;
+
+    private Potfile(Path file) {
+        this.file = file;
+    }
+
+    /** A potfile that remembers nothing and writes nothing. */
+    static Potfile disabled() {
+        return new Potfile(null);
+    }
+
+    /** Opens a potfile, creating it if needed, and loads its entries for {@code hashes}. */
+    static Potfile open(Path file, Collection<String> hashes) throws IOException {
+        Potfile potfile = new Potfile(file);
+        Set<String> wanted = new HashSet<>(hashes);
+        // A plain reader, unlike Files.newBufferedReader, lets a half-written character through as U+FFFD
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon != HASH_LENGTH) {
+                    continue; // Not an entry, or the torn end of one
+                }
+                String hash = line.substring(0, colon);
+                String password = line.substring(colon + 1);
+                if (wanted.contains(hash) && crypts(password, hash)) {
+                    potfile.known.put(hash, password);
+                }
+            }
+        } catch (NoSuchFileException err) {
+            // Created below
+        }
+        potfile.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return potfile;
+    }
+
+    /** Whether {@code password} crypts to {@code hash} under the hash's own salt. */
+    static boolean crypts(String password, String hash) {
+        if (hash.length() < 2 || hash.charAt(0) >= 128 || hash.charAt(1) >= 128) {
+            return false; // No salt character of crypt's
+        }
+        return jcrypt.crypt(hash.substring(0, 2), password).equals(hash);
+    }
+
+    /** The password of a cracked hash, or null. */
+    synchronized String lookup(String hash) {
+        return known.get(hash);
+    }
+
+    /** Records a newly cracked hash; a hash already in the potfile is not written again. */
+    synchronized void add(String hash, String password) {
+        if (known.putIfAbsent(hash, password) != null || channel == null) {
+            return;
+        }
+        try {
+            FileLock lock = channel.lock();
+            long end = channel.size();
+            String line = hash + ":" + password + "\n";
+            if (end > 0) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, end - 1);
+                if (last.get(0) != '\n') {
+                    line = "\n" + line;
+                }
+            }
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(line);
+            while (bytes.hasRemaining()) {
+                end += channel.write(bytes, end);
+            }
+            channel.force(false);
+            lock.release();
+        } catch (IOException err) {
+            System.err.println("Warning: Could not write to potfile " + file + ", no longer saving cracks: "
+                    + err.getMessage());
+            close(); // Also releases the lock
+        }
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException err) {
+            // Every entry was already forced to disk
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,179 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prints cracks, saves them to the potfile and passes them to a listener on a
+ * thread of its own, so that the threads that find them never wait for I/O or
+ * for a lock.
+ *
+ * {@link #add} only appends to a lock-free queue. The writer thread drains
+ * whatever has queued up, prints it to standard output in one write, and then
+ * rewrites the plain file, if there is one: the password of each account on
+ * the account's line of the password file, and an empty line while it is not
+ * cracked, as in {@code passwd1-plain.txt}. Thread-safe.
+ */
+final class ResultWriter {
+
+    private final List<Account> accounts;
+    private final Potfile potfile;
+    private final Cracker.CrackListener listener;
+    private final Queue<Result> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queued = new AtomicLong();
+    private final Thread writer;
+    private volatile long written; // Results handled and printed; advanced by the writer only
+    private volatile Thread parked; // The writer, while it waits for results
+    private volatile boolean closed;
+    private volatile Path plainFile;
+    private String[] plain; // Writer thread only
+
+    /** Starts the writer thread; the listener is called on it. */
+    ResultWriter(List<Account> accounts, Potfile potfile, Cracker.CrackListener listener) {
+        this.accounts = accounts;
+        this.potfile = potfile;
+        this.listener = listener;
+        writer = new Thread(this::run, "results");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Also keeps the passwords in {@code file}, one line per account; set before the first {@link #add}. */
+    void writePlain(Path file) {
+        plainFile = file;
+    }
+
+    /** Queues a crack of the given accounts, which share the hash. */
+    void add(String hash, String guess, long position, int[] userIds) {
+        queue.add(new Result(hash, guess, position, userIds));
+        queued.incrementAndGet();
+        Thread waiting = parked;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+
+    /** Waits until every crack queued so far has been written. */
+    void sync() {
+        long target = queued.get();
+        synchronized (this) {
+            while (written < target && writer.isAlive()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Writes what is queued and stops the writer thread. */
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The writer thread: handles results as they come and writes them out whenever the queue runs dry.
+    private void run() {
+        StringBuilder out = new StringBuilder();
+        long handled = 0;
+        boolean plainChanged = false;
+        while (true) {
+            Result result = queue.poll();
+            if (result != null) {
+                potfile.add(result.hash, result.guess);
+                listener.cracked(result.hash, result.guess, result.position);
+                for (int userId : result.userIds) {
+                    out.append(result.guess).append('\n');
+                    plainChanged |= keepPlain(userId, result.guess);
+                }
+                handled++;
+                continue;
+            }
+            if (out.length() > 0) {
+                System.out.print(out);
+                System.out.flush();
+                out.setLength(0);
+            }
+            if (plainChanged) {
+                savePlain();
+                plainChanged = false;
+            }
+            written = handled;
+            synchronized (this) {
+                notifyAll();
+            }
+            if (closed) {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            parked = Thread.currentThread();
+            if (queue.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            parked = null;
+        }
+    }
+
+    private boolean keepPlain(int userId, String guess) {
+        if (plainFile == null) {
+            return false;
+        }
+        if (plain == null) {
+            plain = new String[accounts.size()];
+        }
+        plain[userId] = guess;
+        return true;
+    }
+
+    // Replaces the plain file in one step, so a reader never sees half of it.
+    private void savePlain() {
+        Path file = plainFile;
+        if (file == null) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (String guess : plain) {
+            text.append(guess == null ? "" : guess).append('\n');
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, text, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException err) {
+            System.err.println("Warning: Could not write " + file + ", no longer saving passwords there: "
+                    + err.getMessage());
+            plainFile = null;
+        }
+    }
+
+    private static final class Result {
+        final String hash;
+        final String guess;
+        final long position;
+        final int[] userIds;
+
+        Result(String hash, String guess, long position, int[] userIds) {
+            this.hash = hash;
+            this.guess = guess;
+            this.position = position;
+            this.userIds = userIds;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package cracker;
+
+import java.util.PriorityQueue;
+
+/**
+ * Schedules the mangle levels rule chain by rule chain, most productive first.
+ *
+ * Each level is cut into work units of one rule chain (a rule at level 1, a
+ * rule pair at level 2) over one slice of the dictionary. A level 2 unit runs
+ * its pair in both orders, word by word, so the many guesses that two
+ * commuting rules make twice follow each other closely enough for the
+ * tried-keys window to drop the second; pairs are tallied and scheduled as
+ * one, under the lower rule first. Every unit's crypts
+ * and the cracks its guesses produce are tallied per chain and per rule, and
+ * {@link #next} hands out the pending unit whose chain has the best estimated
+ * cracks per crypt. Estimates are smoothed towards a prior: at level 1 a fixed
+ * small rate, so every rule gets a first slice before unproductive ones get a
+ * second; at level 2 the mean rate of the pair's two rules, from their crypts
+ * before the level and all their cracks so far, so pairs built from rules that
+ * already cracked something run before the rest. A score therefore only moves
+ * when its own chain runs or a related chain cracks something, which keeps the
+ * queue exact without rescanning it. Ties go to the lower rule number.
+ * Thread-safe.
+ */
+final class RuleOrder {
+
+    enum Mode {
+        ADAPTIVE, FIXED;
+
+        /** Parses a mode name as given on the command line, or returns null. */
+        static Mode parse(String name) {
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** One rule chain, or both orders of a rule pair, over the dictionary words {@code [from, to)}. */
+    static final class Work {
+        final int rule1;
+        final int rule2;
+        final int from;
+        final int to;
+        private final int index;
+        private final Mangler mangler;
+
+        private Work(Mangler mangler, int index, int rule1, int rule2, int from, int to) {
+            this.mangler = mangler;
+            this.index = index;
+            this.rule1 = rule1;
+            this.rule2 = rule2;
+            this.from = from;
+            this.to = to;
+        }
+
+        /** A unit that no RuleOrder scheduled, such as a lease a distributed worker was given. */
+        Work(Mangler mangler, int rule1, int rule2, int from, int to) {
+            this(mangler, -1, rule1, rule2, from, to);
+        }
+
+        /** The unit's chain id: that of the guesses in its first order, by {@link CandidateStream#position()}. */
+        int chain() {
+            return CandidateStream.chain(rule1, rule2);
+        }
+
+        /** How many rule chains the unit runs over each word: 2 for a pair of different rules, else 1. */
+        int chains() {
+            return rule2 < 0 || rule2 == rule1 ? 1 : 2;
+        }
+
+        /** Streams this unit's chain over {@code [from, to)}, usually a part of the unit's own range. */
+        CandidateStream candidates(WordList dictionary, int from, int to) {
+            return new CandidateStream(dictionary, mangler, from, to, rule1, rule2);
+        }
+    }
+
+    private static final int SLICES = 8;
+
+    // The prior counts as this many crypts at this many cracks per crypt
+    private static final double PRIOR_CRYPTS = 1 << 16;
+    private static final double PRIOR_RATE = 1e-6;
+
+    private final Mangler mangler;
+    private final int rules;
+    // Chains are indexed by rule at level 1 and rules + rule1 * rules + rule2, rule1 <= rule2, at level 2
+    private final long[] chainHits;
+    private final long[] chainCrypts;
+    private final long[] ruleHits;
+    private final long[] ruleCrypts;
+    private final long[] levelStartRuleCrypts;
+    private final int[] nextSlice;
+    private final int[] version;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private int dictionarySize;
+    private int sliceWords;
+    private int mangleLevel;
+
+    /** Orders the chains of the given rules. */
+    RuleOrder(Mangler mangler) {
+        this.mangler = mangler;
+        this.rules = mangler.ruleCount();
+        this.chainHits = new long[rules + rules * rules];
+        this.chainCrypts = new long[chainHits.length];
+        this.ruleHits = new long[rules];
+        this.ruleCrypts = new long[rules];
+        this.levelStartRuleCrypts = new long[rules];
+        this.nextSlice = new int[chainHits.length];
+        this.version = new int[chainHits.length];
+    }
+
+    /**
+     * Queues every chain of a mangle level (1 or 2) over a dictionary of the
+     * given size, dropping whatever is left of the previous level.
+     */
+    synchronized void startLevel(int mangleLevel, int dictionarySize) {
+        if (mangleLevel != 1 && mangleLevel != 2) {
+            throw new IllegalArgumentException("Rule chains exist at mangle levels 1 and 2: " + mangleLevel);
+        }
+        this.mangleLevel = mangleLevel;
+        this.dictionarySize = dictionarySize;
+        this.sliceWords = Math.max(1, (dictionarySize + SLICES - 1) / SLICES);
+        System.arraycopy(ruleCrypts, 0, levelStartRuleCrypts, 0, rules);
+        queue.clear();
+        for (int rule1 = 0; rule1 < rules; rule1++) {
+            for (int rule2 = rule1; rule2 < (mangleLevel == 1 ? rule1 + 1 : rules); rule2++) {
+                int index = mangleLevel == 1 ? rule1 : pairIndex(rule1, rule2);
+                nextSlice[index] = 0;
+                push(index);
+            }
+        }
+    }
+
+    /** The best pending unit of the current level, or null once the level is done. */
+    synchronized Work next() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            int index = entry.index;
+            if (entry.version != version[index]) {
+                continue; // Superseded by a later push
+            }
+            int from = nextSlice[index]++ * sliceWords;
+            if (nextSlice[index] * sliceWords < dictionarySize) {
+                push(index, entry.score); // Its next slice, until finished() rescores it
+            }
+            int rule1 = index < rules ? index : (index - rules) / rules;
+            int rule2 = index < rules ? -1 : (index - rules) % rules;
+            return new Work(mangler, index, rule1, rule2, from, Math.min(from + sliceWords, dictionarySize));
+        }
+        return null;
+    }
+
+    /** Records how many guesses of a unit were actually crypted. */
+    synchronized void finished(Work work, long crypts) {
+        chainCrypts[work.index] += crypts;
+        ruleCrypts[work.rule1] += crypts;
+        if (work.rule2 >= 0 && work.rule2 != work.rule1) {
+            ruleCrypts[work.rule2] += crypts;
+        }
+        rescore(work.index);
+    }
+
+    /** Credits a newly cracked hash to the rule chain of the guess, by {@link CandidateStream#position()}. */
+    synchronized void cracked(long position) {
+        int chain = CandidateStream.chainOf(position);
+        int rule1 = CandidateStream.rule1Of(chain);
+        int rule2 = CandidateStream.rule2Of(chain);
+        if (rule1 < 0) {
+            return; // Unmangled word
+        }
+        int index = rule2 < 0 ? rule1 : pairIndex(rule1, rule2);
+        chainHits[index]++;
+        ruleHits[rule1]++;
+        if (rule2 >= 0 && rule2 != rule1) {
+            ruleHits[rule2]++;
+        }
+        rescore(index);
+
+        // A crack raises the prior of every pending pair sharing one of its rules
+        if (mangleLevel == 2) {
+            for (int rule : new int[] { rule1, rule2 }) {
+                if (rule < 0) continue;
+                for (int other = 0; other < rules; other++) {
+                    rescore(pairIndex(rule, other));
+                }
+            }
+        }
+    }
+
+    /** Snapshot of the hit and crypt tallies, for {@link Checkpoint}. */
+    synchronized long[] stats() {
+        long[] stats = new long[2 * chainHits.length + 2 * rules];
+        System.arraycopy(chainHits, 0, stats, 0, chainHits.length);
+        System.arraycopy(chainCrypts, 0, stats, chainHits.length, chainHits.length);
+        System.arraycopy(ruleHits, 0, stats, 2 * chainHits.length, rules);
+        System.arraycopy(ruleCrypts, 0, stats, 2 * chainHits.length + rules, rules);
+        return stats;
+    }
+
+    /** Restores tallies taken by {@link #stats}; call before {@link #startLevel}. */
+    synchronized void restoreStats(long[] stats) {
+        if (stats.length != 2 * chainHits.length + 2 * rules) {
+            throw new IllegalArgumentException("Rule statistics for " + stats.length + " counters, expected "
+                    + (2 * chainHits.length + 2 * rules));
+        }
+        System.arraycopy(stats, 0, chainHits, 0, chainHits.length);
+        System.arraycopy(stats, chainHits.length, chainCrypts, 0, chainHits.length);
+        System.arraycopy(stats, 2 * chainHits.length, ruleHits, 0, rules);
+        System.arraycopy(stats, 2 * chainHits.length + rules, ruleCrypts, 0, rules);
+    }
+
+    // A pair's index, whichever order its rules come in
+    private int pairIndex(int rule1, int rule2) {
+        return rules + Math.min(rule1, rule2) * rules + Math.max(rule1, rule2);
+    }
+
+    private void rescore(int index) {
+        boolean pending = nextSlice[index] * sliceWords < dictionarySize;
+        boolean inLevel = (index < rules) == (mangleLevel == 1);
+        if (pending && inLevel) {
+            push(index);
+        }
+    }
+
+    private double score(int index) {
+        double prior;
+        if (index < rules) {
+            prior = PRIOR_RATE;
+        } else {
+            prior = (ruleRate((index - rules) / rules) + ruleRate((index - rules) % rules)) / 2;
+        }
+        return (chainHits[index] + PRIOR_CRYPTS * prior) / (chainCrypts[index] + PRIOR_CRYPTS);
+    }
+
+    private double ruleRate(int rule) {
+        return (ruleHits[rule] + PRIOR_CRYPTS * PRIOR_RATE) / (levelStartRuleCrypts[rule] + PRIOR_CRYPTS);
+    }
+
+    private void push(int index) {
+        push(index, score(index));
+    }
+
+    private void push(int index, double score) {
+        queue.add(new Entry(index, ++version[index], score));
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final int index;
+        final int version;
+        final double score;
+
+        Entry(int index, int version, double score) {
+            this.index = index;
+            this.version = version;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Integer.compare(index, other.index);
+        }
+    }
+}
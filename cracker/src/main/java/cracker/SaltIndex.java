@@ -0,0 +1,206 @@
+package cracker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Groups the target hashes of a password file by salt.
+ *
+ * A guess only has to be crypted once per distinct salt: the result is then
+ * looked up against every hash under that salt. Users with identical hashes
+ * share one target and are cracked together, as do hashes that differ only in
+ * how their salt is spelled. Hashes are decoded once, here, into the raw
+ * 64-bit form {@link jcrypt#cryptRaw} returns, so a lookup is a plain
+ * {@code long} compare. Which targets are cracked is kept in a bitset, a bit
+ * per target set with one atomic OR, so any thread may claim a target or test
+ * it without locks.
+ *
+ * Everything lives in flat primitive arrays, so that a password file of
+ * millions of accounts costs a few dozen bytes per account and the lookups
+ * stay in cache. Targets are numbered by salt group and, within a group, in
+ * order of their decoded hash, so each group is a sorted slice of one array
+ * that {@link #findTarget} searches by bisection. Targets whose hash cannot be
+ * decoded come after every group.
+ */
+final class SaltIndex {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int[] saltBits;                // per group: jcrypt.saltBits value
+    private final int[] groupStart;              // per group: its first target; one more entry ends the last
+    private final long[] targetHash;             // per target: decoded hash, ascending within each group
+    private final short[] targetGroup;           // per target: owning salt group, -1 if undecodable
+    private final int[] targetUserStart;         // per target: its first entry in targetUsers; one more ends the last
+    private final int[] targetUsers;             // users of each target in turn, in file order
+    private final int[] userTarget;              // per user: target id
+    private final long[] targetCracked;          // per target: a bit, set once claimed
+    private final AtomicIntegerArray groupRemaining;
+
+    SaltIndex(List<String> encryptedPasswords) {
+        int users = encryptedPasswords.size();
+        // Distinct hashes in file order, decoded; salt groups in order of first use. Two spellings of one salt
+        // crypt alike, so hashes are told apart by salt group and decoded hash rather than by their text.
+        Map<Integer, Integer> groupIds = new LinkedHashMap<>();
+        List<Map<Long, Integer>> groupDistinct = new ArrayList<>(); // per group: decoded hash -> distinct id
+        Map<String, Integer> undecodableIds = new HashMap<>();
+        int[] userDistinct = new int[users];
+        long[] distinctRaw = new long[users];
+        int[] distinctGroup = new int[users];
+        int distinct = 0;
+        for (int userId = 0; userId < users; userId++) {
+            String hash = encryptedPasswords.get(userId);
+            Integer id;
+            try {
+                long raw = jcrypt.decodeHash(hash);
+                int group = groupIds.computeIfAbsent(jcrypt.saltBits(hash.substring(0, 2)), bits -> {
+                    groupDistinct.add(new HashMap<>());
+                    return groupIds.size();
+                });
+                id = groupDistinct.get(group).get(raw);
+                if (id == null) {
+                    id = distinct++;
+                    groupDistinct.get(group).put(raw, id);
+                    distinctRaw[id] = raw;
+                    distinctGroup[id] = group;
+                }
+            } catch (IllegalArgumentException err) {
+                id = undecodableIds.get(hash);
+                if (id == null) {
+                    id = distinct++;
+                    undecodableIds.put(hash, id);
+                    distinctGroup[id] = -1;
+                    System.err.println("Warning: " + err.getMessage() + " can never be cracked.");
+                }
+            }
+            userDistinct[userId] = id;
+        }
+
+        // Each group's hashes into its slice, then sorted
+        saltBits = groupIds.keySet().stream().mapToInt(Integer::intValue).toArray();
+        groupStart = new int[saltBits.length + 1];
+        for (int id = 0; id < distinct; id++) {
+            if (distinctGroup[id] >= 0) {
+                groupStart[distinctGroup[id] + 1]++;
+            }
+        }
+        for (int group = 0; group < saltBits.length; group++) {
+            groupStart[group + 1] += groupStart[group];
+        }
+        targetHash = new long[distinct];
+        targetGroup = new short[distinct];
+        int[] fill = Arrays.copyOf(groupStart, saltBits.length);
+        for (int id = 0; id < distinct; id++) {
+            if (distinctGroup[id] >= 0) {
+                targetHash[fill[distinctGroup[id]]++] = distinctRaw[id];
+            }
+        }
+        for (int group = 0; group < saltBits.length; group++) {
+            Arrays.sort(targetHash, groupStart[group], groupStart[group + 1]);
+            Arrays.fill(targetGroup, groupStart[group], groupStart[group + 1], (short) group);
+        }
+
+        // A hash is unique within its group, so its place in the sorted slice is its target id
+        int[] distinctTarget = new int[distinct];
+        int undecodable = groupStart[saltBits.length];
+        for (int id = 0; id < distinct; id++) {
+            int group = distinctGroup[id];
+            if (group < 0) {
+                targetGroup[undecodable] = -1;
+                distinctTarget[id] = undecodable++;
+            } else {
+                distinctTarget[id] = Arrays.binarySearch(targetHash, groupStart[group], groupStart[group + 1],
+                        distinctRaw[id]);
+            }
+        }
+        userTarget = new int[users];
+        targetUserStart = new int[distinct + 1];
+        for (int userId = 0; userId < users; userId++) {
+            userTarget[userId] = distinctTarget[userDistinct[userId]];
+            targetUserStart[userTarget[userId] + 1]++;
+        }
+        for (int target = 0; target < distinct; target++) {
+            targetUserStart[target + 1] += targetUserStart[target];
+        }
+        targetUsers = new int[users];
+        fill = Arrays.copyOf(targetUserStart, distinct);
+        for (int userId = 0; userId < users; userId++) {
+            targetUsers[fill[userTarget[userId]]++] = userId;
+        }
+
+        targetCracked = new long[(distinct + 63) >>> 6];
+        groupRemaining = new AtomicIntegerArray(saltBits.length);
+        for (int group = 0; group < saltBits.length; group++) {
+            groupRemaining.set(group, groupStart[group + 1] - groupStart[group]);
+        }
+    }
+
+    int groupCount() {
+        return saltBits.length;
+    }
+
+    /** The {@link jcrypt#saltBits} value shared by every hash in the group. */
+    int saltBits(int group) {
+        return saltBits[group];
+    }
+
+    /** True once every hash under this salt has been cracked. */
+    boolean isExhausted(int group) {
+        return groupRemaining.get(group) == 0;
+    }
+
+    /** Number of distinct hashes under the group's salt. */
+    int targetCount(int group) {
+        return groupStart[group + 1] - groupStart[group];
+    }
+
+    /** The target id of the group's {@code i}th hash. */
+    int target(int group, int i) {
+        return groupStart[group] + i;
+    }
+
+    /** The group's {@code i}th hash, decoded; they ascend with {@code i}. */
+    long targetHash(int group, int i) {
+        return targetHash[groupStart[group] + i];
+    }
+
+    /** Returns the target id whose hash equals {@code raw} within the group, or -1. */
+    int findTarget(int group, long raw) {
+        int target = Arrays.binarySearch(targetHash, groupStart[group], groupStart[group + 1], raw);
+        return target >= 0 ? target : -1;
+    }
+
+    int targetOf(int userId) {
+        return userTarget[userId];
+    }
+
+    /** The salt group of a target, or -1 if its hash could not be decoded. */
+    int groupOf(int target) {
+        return targetGroup[target];
+    }
+
+    boolean isCracked(int target) {
+        return ((long) BITS.getAcquire(targetCracked, target >>> 6) & (1L << target)) != 0;
+    }
+
+    /**
+     * Marks a target as cracked. Returns the users sharing its hash, or null if
+     * another caller already claimed it.
+     */
+    int[] claim(int target) {
+        long bit = 1L << target;
+        if (((long) BITS.getAndBitwiseOr(targetCracked, target >>> 6, bit) & bit) != 0) {
+            return null;
+        }
+        if (targetGroup[target] >= 0) {
+            groupRemaining.decrementAndGet(targetGroup[target]);
+        }
+        return Arrays.copyOfRange(targetUsers, targetUserStart[target], targetUserStart[target + 1]);
+    }
+}
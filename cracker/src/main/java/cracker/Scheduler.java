@@ -0,0 +1,153 @@
+package cracker;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * How a stage's work is spread over threads: the pluggable back-end of
+ * {@link Cracker}. A stage hands over a range of indices (accounts,
+ * dictionary words or mask candidates) and a task for one slice of it; the
+ * scheduler decides which thread runs which slice and in what order.
+ *
+ * Tasks check for themselves whether every password has been found, so a
+ * scheduler only has to run them. A task's guesses may still wait in a
+ * verifier's batch when the task returns; {@link Cracker} flushes every
+ * verifier once the scheduler is idle. Usually each thread hashes the guesses
+ * it generates, but a scheduler may hand them to threads of its own instead
+ * through a {@link Sink}.
+ */
+interface Scheduler {
+
+    /** The work of one slice {@code [from, to)}. */
+    interface Task {
+        void run(long from, long to);
+    }
+
+    /** The hashing end of the guesses a thread generates. */
+    interface Sink {
+        /** Queues a guess to be hashed and verified. */
+        void add(long key, long position);
+
+        /** Marks the end of a slice's guesses, which are reported once every one of them is verified. */
+        void finished(int[] slice);
+    }
+
+    /**
+     * Runs the task over {@code [from, to)} in slices of at most {@code slice}
+     * indices and returns once all of them have run.
+     */
+    void run(long from, long to, long slice, Task task);
+
+    /** How many threads may run tasks at once. */
+    int threads();
+
+    /** Stops the scheduler's threads, if it has any. */
+    void close();
+
+    /**
+     * Gives the scheduler a way to make sinks, called on each thread that will
+     * hash for it; a scheduler that hashes on the generating threads ignores it.
+     */
+    default void open(Supplier<Sink> hashers) {
+    }
+
+    /** Where the calling thread's guesses go, or null if it hashes them itself. */
+    default Sink sink() {
+        return null;
+    }
+
+    /** Every slice on the calling thread, in index order. */
+    static Scheduler sequential() {
+        return new Sequential();
+    }
+
+    /**
+     * Slices split in half until they are small enough, on a fork/join pool
+     * whose idle threads steal the other halves, so slices that take longer
+     * than others still spread evenly.
+     */
+    static Scheduler forkJoin(int threads) {
+        return new ForkJoin(threads);
+    }
+
+    /**
+     * Generation and hashing on separate threads: see {@link Pipeline}.
+     * {@code threads} producers each feed one hasher through a ring of
+     * {@code ringBatches} batches of {@code batchKeys} guesses.
+     */
+    static Scheduler pipeline(int threads, int ringBatches, int batchKeys) {
+        return new Pipeline(threads, ringBatches, batchKeys);
+    }
+
+    final class Sequential implements Scheduler {
+
+        @Override
+        public void run(long from, long to, long slice, Task task) {
+            for (long start = from; start < to; start += slice) {
+                task.run(start, Math.min(start + slice, to));
+            }
+        }
+
+        @Override
+        public int threads() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    final class ForkJoin implements Scheduler {
+
+        private final ForkJoinPool pool;
+
+        ForkJoin(int threads) {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @Override
+        public void run(long from, long to, long slice, Task task) {
+            if (from < to) {
+                pool.invoke(new Split(from, to, slice, task));
+            }
+        }
+
+        @Override
+        public int threads() {
+            return pool.getParallelism();
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();
+        }
+
+        private static final class Split extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final long from;
+            private final long to;
+            private final long slice;
+            private final transient Task task;
+
+            Split(long from, long to, long slice, Task task) {
+                this.from = from;
+                this.to = to;
+                this.slice = slice;
+                this.task = task;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= slice) {
+                    task.run(from, to);
+                    return;
+                }
+                long mid = (from + to) >>> 1;
+                invokeAll(new Split(from, mid, slice, task), new Split(mid, to, slice, task));
+            }
+        }
+    }
+}
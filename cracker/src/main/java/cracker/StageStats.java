@@ -0,0 +1,241 @@
+package cracker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Live throughput of a cracking run, stage by stage.
+ *
+ * Every thread counts into its own {@link Counters}, with plain opaque stores
+ * and no shared atomics, so counting costs the hash loop next to nothing. A
+ * background timer sums the threads' counters and prints a progress line on
+ * stderr: the stage's guess and crypt rates, how much of its keyspace is done
+ * and when it should finish. Stage boundaries and cracks are also recorded as
+ * JFR events ({@code cracker.Stage}, {@code cracker.Crack}), so a flight
+ * recording lines them up with GC and CPU samples. Thread-safe.
+ */
+final class StageStats {
+
+    static final int DEFAULT_INTERVAL = 10; // Seconds between progress lines
+
+    // The counters each thread keeps
+    static final int GUESSES = 0;    // Guesses generated
+    static final int CRYPTS = 1;     // Crypts run, a bitsliced batch counting each of its keys
+    static final int DUPLICATES = 2; // Guesses skipped because their key was tried recently
+    static final int CRACKS = 3;     // Users cracked
+    static final int DONE = 4;       // Keyspace positions finished, skipped ones included
+    private static final int COUNTERS = 5;
+
+    /**
+     * One thread's counters. Only the owning thread may {@link #add}; any
+     * thread may read them, seeing each value as of some recent add.
+     */
+    static final class Counters {
+        private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final int PAD = 8; // A cache line of longs on either side keeps threads' counters apart
+
+        private final long[] slots = new long[PAD + COUNTERS + PAD];
+
+        void add(int counter, long n) {
+            int slot = PAD + counter;
+            SLOT.setOpaque(slots, slot, slots[slot] + n);
+        }
+
+        long get(int counter) {
+            return (long) SLOT.getOpaque(slots, PAD + counter);
+        }
+    }
+
+    @Name("cracker.Stage")
+    @Label("Cracking Stage")
+    @Category("Password Cracker")
+    @Description("A stage of a cracking run, from start to finish")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+        @Label("Guesses")
+        long guesses;
+        @Label("Crypts")
+        long crypts;
+        @Label("Duplicates Skipped")
+        long duplicates;
+        @Label("Cracks")
+        long cracks;
+    }
+
+    @Name("cracker.Crack")
+    @Label("Password Cracked")
+    @Category("Password Cracker")
+    static final class CrackEvent extends Event {
+        @Label("Stage")
+        String stage;
+        @Label("User")
+        String user;
+    }
+
+    private final List<Counters> threads = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Counters> local = ThreadLocal.withInitial(() -> {
+        Counters counters = new Counters();
+        threads.add(counters);
+        return counters;
+    });
+    private volatile String stage; // Null between stages
+    private LongSupplier keyspace;
+    private long[] base;      // Totals when the stage started
+    private long[] last;      // Totals at the last progress line
+    private long startNanos;
+    private long lastNanos;
+    private StageEvent event;
+    private ScheduledExecutorService timer;
+
+    /** The name under which the dictionary stage of a mangle level is reported. */
+    static String dictionaryStage(int mangleLevel) {
+        return "dictionary, " + (mangleLevel == 0 ? "no mangles" : mangleLevel == 1 ? "1 mangle" : "2 mangles");
+    }
+
+    /** The calling thread's counters. */
+    Counters counters() {
+        return local.get();
+    }
+
+    /** A counter summed over every thread, since the run started. */
+    long total(int counter) {
+        return totals()[counter];
+    }
+
+    /** Prints a progress line every {@code intervalSeconds} while a stage runs. */
+    void startReporting(long intervalSeconds) {
+        timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ends the current stage, if any, and starts the next. {@code keyspace}
+     * gives the number of positions the stage will count as {@link #DONE}; it
+     * may grow while the stage runs, as a dictionary is still being indexed.
+     */
+    synchronized void startStage(String name, LongSupplier keyspace) {
+        endStage();
+        this.keyspace = keyspace;
+        base = totals();
+        last = base;
+        startNanos = System.nanoTime();
+        lastNanos = startNanos;
+        event = new StageEvent();
+        event.begin();
+        stage = name;
+    }
+
+    /** Ends the current stage, printing what it did; call once every guess in it has been verified. */
+    synchronized void endStage() {
+        if (stage == null) {
+            return;
+        }
+        long[] totals = totals();
+        long guesses = totals[GUESSES] - base[GUESSES];
+        long crypts = totals[CRYPTS] - base[CRYPTS];
+        long duplicates = totals[DUPLICATES] - base[DUPLICATES];
+        long cracks = totals[CRACKS] - base[CRACKS];
+        double seconds = Math.max(1, System.nanoTime() - startNanos) / 1e9;
+        System.err.printf("[%s] finished in %s: %s guesses, %s crypts (%s/s), %s duplicates skipped, %d cracked%n",
+                stage, duration(seconds), count(guesses), count(crypts), count(crypts / seconds), count(duplicates),
+                cracks);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.guesses = guesses;
+            event.crypts = crypts;
+            event.duplicates = duplicates;
+            event.cracks = cracks;
+            event.commit();
+        }
+        stage = null;
+    }
+
+    /**
+     * Counts a user cracked by the calling thread. Cracks restored from a
+     * potfile or checkpoint, before any stage, are not counted.
+     */
+    void cracked(String user) {
+        String current = stage;
+        if (current == null) {
+            return;
+        }
+        counters().add(CRACKS, 1);
+        CrackEvent crack = new CrackEvent();
+        if (crack.shouldCommit()) {
+            crack.stage = current;
+            crack.user = user;
+            crack.commit();
+        }
+    }
+
+    /** Ends the current stage and stops reporting. */
+    void close() {
+        endStage();
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private synchronized void report() {
+        if (stage == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long[] totals = totals();
+        double interval = Math.max(1, now - lastNanos) / 1e9;
+        double elapsed = Math.max(1, now - startNanos) / 1e9;
+        long done = totals[DONE] - base[DONE];
+        long size = Math.max(done, keyspace.getAsLong());
+        String eta = done == 0 ? "unknown" : duration((size - done) * elapsed / done);
+
+        System.err.printf("[%s] %.1f%% of %s, %s guesses/s, %s crypts/s, %s duplicates skipped, %d cracked, ETA %s%n",
+                stage, size == 0 ? 100.0 : 100.0 * done / size, count(size),
+                count((totals[GUESSES] - last[GUESSES]) / interval), count((totals[CRYPTS] - last[CRYPTS]) / interval),
+                count(totals[DUPLICATES] - base[DUPLICATES]), totals[CRACKS] - base[CRACKS], eta);
+        last = totals;
+        lastNanos = now;
+    }
+
+    private long[] totals() {
+        long[] totals = new long[COUNTERS];
+        for (Counters counters : threads) {
+            for (int counter = 0; counter < COUNTERS; counter++) {
+                totals[counter] += counters.get(counter);
+            }
+        }
+        return totals;
+    }
+
+    // A count with a k, M or G suffix, e.g. 12.3M.
+    private static String count(double n) {
+        if (n < 1e3) {
+            return String.valueOf(Math.round(n));
+        }
+        int unit = Math.min(3, (int) (Math.log10(n) / 3));
+        return String.format("%.1f%c", n / Math.pow(1e3, unit), "kMG".charAt(unit - 1));
+    }
+
+    private static String duration(double seconds) {
+        long s = Math.round(seconds);
+        return String.format("%d:%02d:%02d", s / 3600, s / 60 % 60, s % 60);
+    }
+}
@@ -0,0 +1,868 @@
+package cracker;
+
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BitslicedCrypt} on the Java Vector API.
+ *
+ * Each bit slice is a vector of longs instead of a single long, so one
+ * {@link #crypt} call hashes 64 keys per vector element: 128 with SSE, 256
+ * with AVX2 and 512 with AVX-512, as the JVM's preferred vector size gives.
+ * The S-box gate networks are BitslicedCrypt's, gate for gate, and the
+ * results are exactly the raw values {@link jcrypt#cryptRaw} returns.
+ *
+ * The class needs the incubating {@code jdk.incubator.vector} module, which
+ * the JVM only resolves when started with
+ * {@code --add-modules jdk.incubator.vector}; without it the class cannot be
+ * initialized, so check {@link BatchVerifier.Engine#isAvailable} first.
+ * Instances hold working state and are not thread-safe.
+ */
+final class VectorCrypt {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int WORDS = SPECIES.length();
+
+    /** Keys hashed by one {@link #crypt} call. */
+    static final int LANES = 64 * WORDS;
+
+    // Slice i of each array is the WORDS longs from i * WORDS on
+    private final long[] keys = new long[56 * WORDS];
+    private final long[] left = new long[32 * WORDS];
+    private final long[] right = new long[32 * WORDS];
+    private final long[] output = new long[64 * WORDS]; // Raw output bit slices, most significant first
+    private final long[] matches = new long[WORDS];
+    private final int[] expansion = new int[48];
+    private int expansionSalt = -1;
+
+    /** Puts a {@link jcrypt#canonicalKey} in the given lane. */
+    void setKey(int lane, long key) {
+        int word = lane >>> 6;
+        long bit = 1L << lane;
+        for (int i = 0; i < 56; i++) {
+            int index = i * WORDS + word;
+            keys[index] = (keys[index] & ~bit) | (-((key >>> i) & 1) & bit);
+        }
+    }
+
+    /** Hashes all lanes under the given {@link jcrypt#saltBits} value. */
+    void crypt(int saltBits) {
+        if (saltBits != expansionSalt) {
+            BitslicedCrypt.expansion(saltBits, expansion);
+            expansionSalt = saltBits;
+        }
+        long[] l = left;
+        long[] r = right;
+        Arrays.fill(l, 0);
+        Arrays.fill(r, 0);
+
+        for (int iteration = 0; iteration < 25; iteration++) {
+            for (int round = 0; round < 16; round += 2) {
+                feistel(r, l, BitslicedCrypt.ROUND_KEY_BITS[round]);
+                feistel(l, r, BitslicedCrypt.ROUND_KEY_BITS[round + 1]);
+            }
+            long[] t = l;
+            l = r;
+            r = t;
+        }
+
+        for (int i = 0; i < 64; i++) {
+            int bit = BitslicedCrypt.FP[i] - 1;
+            System.arraycopy(bit < 32 ? l : r, (bit & 31) * WORDS, output, i * WORDS, WORDS);
+        }
+    }
+
+    /**
+     * Returns the lowest of the first {@code lanes} lanes whose last
+     * {@link #crypt} produced {@code target}, or -1 if none did.
+     */
+    int firstMatch(long target, int lanes) {
+        LongVector mismatch = LongVector.zero(SPECIES);
+        for (int i = 0; i < 64; i++) {
+            mismatch = mismatch.or(LongVector.fromArray(SPECIES, output, i * WORDS)
+                    .lanewise(XOR, -((target >>> (63 - i)) & 1)));
+            if (mismatch.eq(-1L).allTrue()) {
+                return -1;
+            }
+        }
+        mismatch.not().intoArray(matches, 0);
+        for (int word = 0; word < WORDS && word * 64 < lanes; word++) {
+            int live = lanes - word * 64;
+            long found = live >= 64 ? matches[word] : matches[word] & ((1L << live) - 1);
+            if (found != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(found);
+            }
+        }
+        return -1;
+    }
+
+    /** Extracts one lane's hash from the last {@link #crypt}. */
+    long hash(int lane) {
+        int word = lane >>> 6;
+        long raw = 0;
+        for (int i = 0; i < 64; i++) {
+            raw = (raw << 1) | ((output[i * WORDS + word] >>> lane) & 1);
+        }
+        return raw;
+    }
+
+    /** Extracts every lane's hash from the last {@link #crypt} into {@code into}, lane by lane. */
+    void hashes(long[] into) {
+        for (int word = 0; word < WORDS; word++) {
+            for (int i = 0; i < 64; i++) {
+                into[word * 64 + i] = output[(63 - i) * WORDS + word];
+            }
+            BitslicedCrypt.transpose(into, word * 64);
+        }
+    }
+
+    // The S-boxes load their own inputs, so that no vector crosses a call that may not be inlined.
+    private void feistel(long[] in, long[] out, int[] k) {
+        long[] key = keys;
+        int[] e = expansion;
+        int[] o = BitslicedCrypt.SBOX_OUT;
+        s1(in, key, e, k, 0, out, o[0], o[1], o[2], o[3]);
+        s2(in, key, e, k, 6, out, o[4], o[5], o[6], o[7]);
+        s3(in, key, e, k, 12, out, o[8], o[9], o[10], o[11]);
+        s4(in, key, e, k, 18, out, o[12], o[13], o[14], o[15]);
+        s5(in, key, e, k, 24, out, o[16], o[17], o[18], o[19]);
+        s6(in, key, e, k, 30, out, o[20], o[21], o[22], o[23]);
+        s7(in, key, e, k, 36, out, o[24], o[25], o[26], o[27]);
+        s8(in, key, e, k, 42, out, o[28], o[29], o[30], o[31]);
+    }
+
+    // One S-box input: R slice e XOR key slice k.
+    private static LongVector input(long[] in, long[] key, int e, int k) {
+        return LongVector.fromArray(SPECIES, in, e * WORDS)
+                .lanewise(XOR, LongVector.fromArray(SPECIES, key, k * WORDS));
+    }
+
+    private static void xorInto(long[] out, int slice, LongVector bits) {
+        bits.lanewise(XOR, LongVector.fromArray(SPECIES, out, slice * WORDS)).intoArray(out, slice * WORDS);
+    }
+
+    /*
+     * BitslicedCrypt's S-box gate networks, on vectors. Inputs a1..a6 are the
+     * six S-box inputs, e[first] to e[first + 5], in FIPS order; each output is
+     * XORed into its slice of the other half.
+     */
+    private static void s1(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a5.not();
+        LongVector x2 = a2.lanewise(XOR, x1);
+        LongVector x3 = a2.not();
+        LongVector x4 = x2.lanewise(XOR, a3.and(x3));
+        LongVector x5 = x2.lanewise(XOR, a3.and(a5));
+        LongVector x6 = x4.lanewise(XOR, x5);
+        LongVector x7 = x4.lanewise(XOR, a4.and(x6));
+        LongVector x8 = x4.not();
+        LongVector x9 = a2.lanewise(XOR, a3.and(x1));
+        LongVector x10 = x8.lanewise(XOR, x9);
+        LongVector x11 = x8.lanewise(XOR, a4.and(x10));
+        LongVector x12 = x7.lanewise(XOR, x11);
+        LongVector x13 = x7.lanewise(XOR, a6.and(x12));
+        LongVector x14 = x3.or(x1);
+        LongVector x15 = a5.and(x3);
+        LongVector x16 = x14.lanewise(XOR, a3.and(x1));
+        LongVector x17 = x9.lanewise(XOR, x16);
+        LongVector x18 = x9.lanewise(XOR, a4.and(x17));
+        LongVector x19 = x2.not();
+        LongVector x20 = x15.not();
+        LongVector x21 = x17.lanewise(XOR, a3.and(x20));
+        LongVector x22 = x14.not();
+        LongVector x23 = x2.lanewise(XOR, x22);
+        LongVector x24 = x2.lanewise(XOR, a3.and(x23));
+        LongVector x25 = x21.lanewise(XOR, x24);
+        LongVector x26 = x21.lanewise(XOR, a4.and(x25));
+        LongVector x27 = x18.lanewise(XOR, x26);
+        LongVector x28 = x18.lanewise(XOR, a6.and(x27));
+        LongVector x29 = x13.lanewise(XOR, x28);
+        LongVector x30 = x13.lanewise(XOR, a1.and(x29));
+        LongVector x31 = x9.not();
+        LongVector x32 = x20.lanewise(XOR, a3.and(x1));
+        LongVector x33 = x23.not();
+        LongVector x34 = x31.lanewise(XOR, a4.and(x33));
+        LongVector x35 = a5.lanewise(XOR, a3.and(x3));
+        LongVector x36 = x14.lanewise(XOR, a3.and(x19));
+        LongVector x37 = x35.lanewise(XOR, a4.and(x32));
+        LongVector x38 = x34.lanewise(XOR, x37);
+        LongVector x39 = x34.lanewise(XOR, a6.and(x38));
+        LongVector x40 = x20.lanewise(XOR, a3.and(x33));
+        LongVector x41 = x17.not();
+        LongVector x42 = x2.lanewise(XOR, a3.and(x20));
+        LongVector x43 = x40.lanewise(XOR, x42);
+        LongVector x44 = x40.lanewise(XOR, a4.and(x43));
+        LongVector x45 = a4.lanewise(XOR, x36);
+        LongVector x46 = x44.lanewise(XOR, x45);
+        LongVector x47 = x44.lanewise(XOR, a6.and(x46));
+        LongVector x48 = x39.lanewise(XOR, x47);
+        LongVector x49 = x39.lanewise(XOR, a1.and(x48));
+        LongVector x50 = x21.not();
+        LongVector x51 = x40.lanewise(XOR, a4.and(x4));
+        LongVector x52 = x33.lanewise(XOR, a3.and(x20));
+        LongVector x53 = x52.lanewise(XOR, a4.and(x14));
+        LongVector x54 = x51.lanewise(XOR, x53);
+        LongVector x55 = x51.lanewise(XOR, a6.and(x54));
+        LongVector x56 = x41.lanewise(XOR, a3.and(a5));
+        LongVector x57 = x56.lanewise(XOR, a4.and(x20));
+        LongVector x58 = x33.lanewise(XOR, a3.and(x22));
+        LongVector x59 = x42.lanewise(XOR, a4.and(x16));
+        LongVector x60 = x57.lanewise(XOR, x59);
+        LongVector x61 = x57.lanewise(XOR, a6.and(x60));
+        LongVector x62 = x55.lanewise(XOR, x61);
+        LongVector x63 = x55.lanewise(XOR, a1.and(x62));
+        LongVector x64 = x3.lanewise(XOR, a3.and(a5));
+        LongVector x65 = x56.lanewise(XOR, a4.and(x14));
+        LongVector x66 = x40.not();
+        LongVector x67 = x2.lanewise(XOR, a3.and(x33));
+        LongVector x68 = x66.lanewise(XOR, a4.and(x17));
+        LongVector x69 = x65.lanewise(XOR, x68);
+        LongVector x70 = x65.lanewise(XOR, a6.and(x69));
+        LongVector x71 = x64.not();
+        LongVector x72 = x8.lanewise(XOR, x71);
+        LongVector x73 = x8.lanewise(XOR, a4.and(x72));
+        LongVector x74 = a3.lanewise(XOR, x20);
+        LongVector x75 = a3.lanewise(XOR, x41);
+        LongVector x76 = x74.lanewise(XOR, a4.and(x2));
+        LongVector x77 = x73.lanewise(XOR, x76);
+        LongVector x78 = x73.lanewise(XOR, a6.and(x77));
+        LongVector x79 = x70.lanewise(XOR, x78);
+        LongVector x80 = x70.lanewise(XOR, a1.and(x79));
+        xorInto(out, o1, x30);
+        xorInto(out, o2, x49);
+        xorInto(out, o3, x63);
+        xorInto(out, o4, x80);
+    }
+
+    private static void s2(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a2.not();
+        LongVector x2 = a4.not();
+        LongVector x3 = x1.or(x2);
+        LongVector x4 = a2.and(x2);
+        LongVector x5 = x3.lanewise(XOR, a3.and(x1));
+        LongVector x6 = x3.not();
+        LongVector x7 = a3.lanewise(XOR, x6);
+        LongVector x8 = x5.lanewise(XOR, x7);
+        LongVector x9 = x5.lanewise(XOR, a1.and(x8));
+        LongVector x10 = a3.lanewise(XOR, x4);
+        LongVector x11 = x7.not();
+        LongVector x12 = x10.lanewise(XOR, a1.and(x1));
+        LongVector x13 = x9.lanewise(XOR, x12);
+        LongVector x14 = x9.lanewise(XOR, a6.and(x13));
+        LongVector x15 = a2.lanewise(XOR, x2);
+        LongVector x16 = a4.lanewise(XOR, a3.and(x1));
+        LongVector x17 = x16.lanewise(XOR, x11);
+        LongVector x18 = x16.lanewise(XOR, a1.and(x17));
+        LongVector x19 = a3.lanewise(XOR, x15);
+        LongVector x20 = x19.lanewise(XOR, a1.and(a3));
+        LongVector x21 = x18.lanewise(XOR, x20);
+        LongVector x22 = x18.lanewise(XOR, a6.and(x21));
+        LongVector x23 = x14.lanewise(XOR, x22);
+        LongVector x24 = x14.lanewise(XOR, a5.and(x23));
+        LongVector x25 = x2.and(x1);
+        LongVector x26 = a2.or(x2);
+        LongVector x27 = x25.lanewise(XOR, a3.and(a2));
+        LongVector x28 = a1.lanewise(XOR, x27);
+        LongVector x29 = x15.not();
+        LongVector x30 = x29.lanewise(XOR, a3.and(x1));
+        LongVector x31 = a1.lanewise(XOR, x30);
+        LongVector x32 = x28.lanewise(XOR, a6.and(x11));
+        LongVector x33 = x27.not();
+        LongVector x34 = x33.lanewise(XOR, x15);
+        LongVector x35 = x33.lanewise(XOR, a1.and(x34));
+        LongVector x36 = x1.lanewise(XOR, a3.and(x15));
+        LongVector x37 = a1.lanewise(XOR, x36);
+        LongVector x38 = x35.lanewise(XOR, x37);
+        LongVector x39 = x35.lanewise(XOR, a6.and(x38));
+        LongVector x40 = x32.lanewise(XOR, x39);
+        LongVector x41 = x32.lanewise(XOR, a5.and(x40));
+        LongVector x42 = x15.lanewise(XOR, a3.and(a4));
+        LongVector x43 = x26.not();
+        LongVector x44 = x4.not();
+        LongVector x45 = x43.lanewise(XOR, a3.and(x44));
+        LongVector x46 = x42.lanewise(XOR, x45);
+        LongVector x47 = x42.lanewise(XOR, a1.and(x46));
+        LongVector x48 = x25.not();
+        LongVector x49 = x48.lanewise(XOR, a3.and(x3));
+        LongVector x50 = x27.lanewise(XOR, x49);
+        LongVector x51 = x27.lanewise(XOR, a1.and(x50));
+        LongVector x52 = x47.lanewise(XOR, x51);
+        LongVector x53 = x47.lanewise(XOR, a6.and(x52));
+        LongVector x54 = x19.not();
+        LongVector x55 = x44.lanewise(XOR, a3.and(x3));
+        LongVector x56 = x54.lanewise(XOR, x55);
+        LongVector x57 = x54.lanewise(XOR, a1.and(x56));
+        LongVector x58 = a4.lanewise(XOR, a3.and(x15));
+        LongVector x59 = x55.not();
+        LongVector x60 = x58.lanewise(XOR, x59);
+        LongVector x61 = x58.lanewise(XOR, a1.and(x60));
+        LongVector x62 = x57.lanewise(XOR, x61);
+        LongVector x63 = x57.lanewise(XOR, a6.and(x62));
+        LongVector x64 = x53.lanewise(XOR, x63);
+        LongVector x65 = x53.lanewise(XOR, a5.and(x64));
+        LongVector x66 = a3.lanewise(XOR, x2);
+        LongVector x67 = x66.lanewise(XOR, x29);
+        LongVector x68 = x66.lanewise(XOR, a1.and(x67));
+        LongVector x69 = x15.lanewise(XOR, x17);
+        LongVector x70 = x15.lanewise(XOR, a1.and(x69));
+        LongVector x71 = x68.lanewise(XOR, x70);
+        LongVector x72 = x68.lanewise(XOR, a6.and(x71));
+        LongVector x73 = a1.lanewise(XOR, x17);
+        LongVector x74 = a3.lanewise(XOR, x43);
+        LongVector x75 = x67.lanewise(XOR, a1.and(x25));
+        LongVector x76 = x73.lanewise(XOR, x75);
+        LongVector x77 = x73.lanewise(XOR, a6.and(x76));
+        LongVector x78 = x72.lanewise(XOR, x77);
+        LongVector x79 = x72.lanewise(XOR, a5.and(x78));
+        xorInto(out, o1, x24);
+        xorInto(out, o2, x41);
+        xorInto(out, o3, x65);
+        xorInto(out, o4, x79);
+    }
+
+    private static void s3(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a5.not();
+        LongVector x2 = a3.not();
+        LongVector x3 = x1.and(x2);
+        LongVector x4 = a3.lanewise(XOR, a5);
+        LongVector x5 = x3.lanewise(XOR, x4);
+        LongVector x6 = x3.lanewise(XOR, a2.and(x5));
+        LongVector x7 = x4.not();
+        LongVector x8 = x3.not();
+        LongVector x9 = x5.lanewise(XOR, a2.and(x8));
+        LongVector x10 = x6.lanewise(XOR, x9);
+        LongVector x11 = x6.lanewise(XOR, a4.and(x10));
+        LongVector x12 = a2.lanewise(XOR, x3);
+        LongVector x13 = a5.lanewise(XOR, a2.and(a3));
+        LongVector x14 = x12.lanewise(XOR, x13);
+        LongVector x15 = x12.lanewise(XOR, a4.and(x14));
+        LongVector x16 = x11.lanewise(XOR, x15);
+        LongVector x17 = x11.lanewise(XOR, a6.and(x16));
+        LongVector x18 = a3.or(x1);
+        LongVector x19 = x18.lanewise(XOR, x7);
+        LongVector x20 = x18.lanewise(XOR, a2.and(x19));
+        LongVector x21 = a4.lanewise(XOR, x20);
+        LongVector x22 = a4.lanewise(XOR, x13);
+        LongVector x23 = x21.lanewise(XOR, x22);
+        LongVector x24 = x21.lanewise(XOR, a6.and(x23));
+        LongVector x25 = x17.lanewise(XOR, x24);
+        LongVector x26 = x17.lanewise(XOR, a1.and(x25));
+        LongVector x27 = x19.lanewise(XOR, a2.and(x8));
+        LongVector x28 = x8.lanewise(XOR, a2.and(x18));
+        LongVector x29 = x27.lanewise(XOR, x28);
+        LongVector x30 = x27.lanewise(XOR, a4.and(x29));
+        LongVector x31 = x19.not();
+        LongVector x32 = a2.lanewise(XOR, x31);
+        LongVector x33 = x14.not();
+        LongVector x34 = x32.lanewise(XOR, x33);
+        LongVector x35 = x32.lanewise(XOR, a4.and(x34));
+        LongVector x36 = x30.lanewise(XOR, x35);
+        LongVector x37 = x30.lanewise(XOR, a6.and(x36));
+        LongVector x38 = x32.lanewise(XOR, a4.and(a5));
+        LongVector x39 = x32.not();
+        LongVector x40 = x39.lanewise(XOR, x7);
+        LongVector x41 = x39.lanewise(XOR, a4.and(x40));
+        LongVector x42 = x38.lanewise(XOR, x41);
+        LongVector x43 = x38.lanewise(XOR, a6.and(x42));
+        LongVector x44 = x37.lanewise(XOR, x43);
+        LongVector x45 = x37.lanewise(XOR, a1.and(x44));
+        LongVector x46 = x18.lanewise(XOR, a2.and(x7));
+        LongVector x47 = x46.lanewise(XOR, x4);
+        LongVector x48 = x46.lanewise(XOR, a4.and(x47));
+        LongVector x49 = a2.lanewise(XOR, x4);
+        LongVector x50 = a3.lanewise(XOR, a2.and(a5));
+        LongVector x51 = x49.lanewise(XOR, x50);
+        LongVector x52 = x49.lanewise(XOR, a4.and(x51));
+        LongVector x53 = x48.lanewise(XOR, x52);
+        LongVector x54 = x48.lanewise(XOR, a6.and(x53));
+        LongVector x55 = x47.not();
+        LongVector x56 = x29.lanewise(XOR, x55);
+        LongVector x57 = x29.lanewise(XOR, a4.and(x56));
+        LongVector x58 = x5.not();
+        LongVector x59 = a2.lanewise(XOR, x58);
+        LongVector x60 = x12.not();
+        LongVector x61 = x4.lanewise(XOR, a4.and(x60));
+        LongVector x62 = x57.lanewise(XOR, x61);
+        LongVector x63 = x57.lanewise(XOR, a6.and(x62));
+        LongVector x64 = x54.lanewise(XOR, x63);
+        LongVector x65 = x54.lanewise(XOR, a1.and(x64));
+        LongVector x66 = x59.lanewise(XOR, a4.and(x1));
+        LongVector x67 = a6.lanewise(XOR, x66);
+        LongVector x68 = x7.lanewise(XOR, a2.and(x8));
+        LongVector x69 = a4.lanewise(XOR, x68);
+        LongVector x70 = x7.lanewise(XOR, a2.and(x5));
+        LongVector x71 = x18.not();
+        LongVector x72 = x7.lanewise(XOR, a2.and(x31));
+        LongVector x73 = x34.not();
+        LongVector x74 = x70.lanewise(XOR, a4.and(x73));
+        LongVector x75 = x69.lanewise(XOR, x74);
+        LongVector x76 = x69.lanewise(XOR, a6.and(x75));
+        LongVector x77 = x67.lanewise(XOR, x76);
+        LongVector x78 = x67.lanewise(XOR, a1.and(x77));
+        xorInto(out, o1, x26);
+        xorInto(out, o2, x45);
+        xorInto(out, o3, x65);
+        xorInto(out, o4, x78);
+    }
+
+    private static void s4(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a2.not();
+        LongVector x2 = a5.and(x1);
+        LongVector x3 = x2.lanewise(XOR, a2);
+        LongVector x4 = x2.lanewise(XOR, a3.and(x3));
+        LongVector x5 = a5.not();
+        LongVector x6 = x1.or(a5);
+        LongVector x7 = x5.lanewise(XOR, a3.and(x3));
+        LongVector x8 = x4.lanewise(XOR, x7);
+        LongVector x9 = x4.lanewise(XOR, a4.and(x8));
+        LongVector x10 = x5.lanewise(XOR, x1);
+        LongVector x11 = x5.lanewise(XOR, a3.and(x10));
+        LongVector x12 = x10.not();
+        LongVector x13 = a3.lanewise(XOR, x12);
+        LongVector x14 = x11.lanewise(XOR, x13);
+        LongVector x15 = x11.lanewise(XOR, a4.and(x14));
+        LongVector x16 = x9.lanewise(XOR, x15);
+        LongVector x17 = x9.lanewise(XOR, a1.and(x16));
+        LongVector x18 = x14.not();
+        LongVector x19 = x12.lanewise(XOR, a3.and(x5));
+        LongVector x20 = x18.lanewise(XOR, x19);
+        LongVector x21 = x18.lanewise(XOR, a4.and(x20));
+        LongVector x22 = x10.lanewise(XOR, a3.and(x1));
+        LongVector x23 = x8.not();
+        LongVector x24 = x23.lanewise(XOR, a3.and(x1));
+        LongVector x25 = x22.lanewise(XOR, a4.and(x3));
+        LongVector x26 = x21.lanewise(XOR, x25);
+        LongVector x27 = x21.lanewise(XOR, a1.and(x26));
+        LongVector x28 = x17.lanewise(XOR, x27);
+        LongVector x29 = x17.lanewise(XOR, a6.and(x28));
+        LongVector x30 = x17.not();
+        LongVector x31 = x28.not();
+        LongVector x32 = x27.lanewise(XOR, a6.and(x31));
+        LongVector x33 = x11.not();
+        LongVector x34 = x13.lanewise(XOR, a4.and(x33));
+        LongVector x35 = x2.not();
+        LongVector x36 = x8.lanewise(XOR, a3.and(x35));
+        LongVector x37 = x3.not();
+        LongVector x38 = a2.lanewise(XOR, a3.and(x35));
+        LongVector x39 = x36.lanewise(XOR, a4.and(x6));
+        LongVector x40 = x34.lanewise(XOR, x39);
+        LongVector x41 = x34.lanewise(XOR, a1.and(x40));
+        LongVector x42 = x5.lanewise(XOR, a3.and(x1));
+        LongVector x43 = x24.lanewise(XOR, a4.and(x35));
+        LongVector x44 = x1.lanewise(XOR, a3.and(a5));
+        LongVector x45 = x44.lanewise(XOR, x33);
+        LongVector x46 = x44.lanewise(XOR, a4.and(x45));
+        LongVector x47 = x43.lanewise(XOR, x46);
+        LongVector x48 = x43.lanewise(XOR, a1.and(x47));
+        LongVector x49 = x41.lanewise(XOR, x48);
+        LongVector x50 = x41.lanewise(XOR, a6.and(x49));
+        LongVector x51 = x48.not();
+        LongVector x52 = x49.not();
+        LongVector x53 = x51.lanewise(XOR, a6.and(x52));
+        xorInto(out, o1, x29);
+        xorInto(out, o2, x32);
+        xorInto(out, o3, x50);
+        xorInto(out, o4, x53);
+    }
+
+    private static void s5(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a1.not();
+        LongVector x2 = a5.and(x1);
+        LongVector x3 = a2.lanewise(XOR, x2);
+        LongVector x4 = a1.or(a5);
+        LongVector x5 = a2.lanewise(XOR, x4);
+        LongVector x6 = x3.lanewise(XOR, a3.and(a1));
+        LongVector x7 = a2.not();
+        LongVector x8 = a1.and(a5);
+        LongVector x9 = x7.or(x8);
+        LongVector x10 = a1.lanewise(XOR, a5);
+        LongVector x11 = x8.lanewise(XOR, a2.and(x4));
+        LongVector x12 = x9.lanewise(XOR, x11);
+        LongVector x13 = x9.lanewise(XOR, a3.and(x12));
+        LongVector x14 = x6.lanewise(XOR, x13);
+        LongVector x15 = x6.lanewise(XOR, a6.and(x14));
+        LongVector x16 = x10.not();
+        LongVector x17 = x1.or(a5);
+        LongVector x18 = x16.lanewise(XOR, a2.and(x2));
+        LongVector x19 = x11.lanewise(XOR, x18);
+        LongVector x20 = x11.lanewise(XOR, a3.and(x19));
+        LongVector x21 = x2.not();
+        LongVector x22 = x10.lanewise(XOR, a2.and(x21));
+        LongVector x23 = x4.not();
+        LongVector x24 = x16.lanewise(XOR, a2.and(x8));
+        LongVector x25 = x22.lanewise(XOR, x24);
+        LongVector x26 = x22.lanewise(XOR, a3.and(x25));
+        LongVector x27 = x20.lanewise(XOR, x26);
+        LongVector x28 = x20.lanewise(XOR, a6.and(x27));
+        LongVector x29 = x15.lanewise(XOR, x28);
+        LongVector x30 = x15.lanewise(XOR, a4.and(x29));
+        LongVector x31 = a5.not();
+        LongVector x32 = x16.lanewise(XOR, a2.and(a1));
+        LongVector x33 = x10.lanewise(XOR, x32);
+        LongVector x34 = x10.lanewise(XOR, a3.and(x33));
+        LongVector x35 = x17.lanewise(XOR, a2.and(x1));
+        LongVector x36 = x19.lanewise(XOR, x35);
+        LongVector x37 = x19.lanewise(XOR, a3.and(x36));
+        LongVector x38 = x34.lanewise(XOR, x37);
+        LongVector x39 = x34.lanewise(XOR, a6.and(x38));
+        LongVector x40 = x5.not();
+        LongVector x41 = a2.lanewise(XOR, x10);
+        LongVector x42 = x8.not();
+        LongVector x43 = x40.lanewise(XOR, a3.and(x42));
+        LongVector x44 = a6.lanewise(XOR, x43);
+        LongVector x45 = x39.lanewise(XOR, x44);
+        LongVector x46 = x39.lanewise(XOR, a4.and(x45));
+        LongVector x47 = x22.not();
+        LongVector x48 = x42.lanewise(XOR, a2.and(x17));
+        LongVector x49 = x47.lanewise(XOR, x48);
+        LongVector x50 = x47.lanewise(XOR, a3.and(x49));
+        LongVector x51 = x48.lanewise(XOR, x36);
+        LongVector x52 = x48.lanewise(XOR, a3.and(x51));
+        LongVector x53 = x50.lanewise(XOR, x52);
+        LongVector x54 = x50.lanewise(XOR, a6.and(x53));
+        LongVector x55 = x48.not();
+        LongVector x56 = x11.not();
+        LongVector x57 = x55.lanewise(XOR, a3.and(x25));
+        LongVector x58 = x16.lanewise(XOR, a2.and(a5));
+        LongVector x59 = x17.not();
+        LongVector x60 = x59.lanewise(XOR, a2.and(x4));
+        LongVector x61 = x58.lanewise(XOR, a3.and(x51));
+        LongVector x62 = x57.lanewise(XOR, x61);
+        LongVector x63 = x57.lanewise(XOR, a6.and(x62));
+        LongVector x64 = x54.lanewise(XOR, x63);
+        LongVector x65 = x54.lanewise(XOR, a4.and(x64));
+        LongVector x66 = a2.and(x4);
+        LongVector x67 = x66.lanewise(XOR, x16);
+        LongVector x68 = x66.lanewise(XOR, a3.and(x67));
+        LongVector x69 = x10.lanewise(XOR, a2.and(x31));
+        LongVector x70 = x41.lanewise(XOR, x69);
+        LongVector x71 = x41.lanewise(XOR, a3.and(x70));
+        LongVector x72 = x68.lanewise(XOR, x71);
+        LongVector x73 = x68.lanewise(XOR, a6.and(x72));
+        LongVector x74 = x4.lanewise(XOR, a2.and(x31));
+        LongVector x75 = x31.lanewise(XOR, a2.and(x42));
+        LongVector x76 = x74.lanewise(XOR, x75);
+        LongVector x77 = x74.lanewise(XOR, a3.and(x76));
+        LongVector x78 = x8.lanewise(XOR, a2.and(x23));
+        LongVector x79 = x17.lanewise(XOR, a2.and(x42));
+        LongVector x80 = x78.lanewise(XOR, x79);
+        LongVector x81 = x78.lanewise(XOR, a3.and(x80));
+        LongVector x82 = x77.lanewise(XOR, x81);
+        LongVector x83 = x77.lanewise(XOR, a6.and(x82));
+        LongVector x84 = x73.lanewise(XOR, x83);
+        LongVector x85 = x73.lanewise(XOR, a4.and(x84));
+        xorInto(out, o1, x30);
+        xorInto(out, o2, x46);
+        xorInto(out, o3, x65);
+        xorInto(out, o4, x85);
+    }
+
+    private static void s6(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a2.not();
+        LongVector x2 = a2.lanewise(XOR, a6);
+        LongVector x3 = a6.not();
+        LongVector x4 = x1.lanewise(XOR, a5.and(x3));
+        LongVector x5 = a5.lanewise(XOR, x3);
+        LongVector x6 = x4.lanewise(XOR, x5);
+        LongVector x7 = x4.lanewise(XOR, a3.and(x6));
+        LongVector x8 = x2.not();
+        LongVector x9 = a6.and(x1);
+        LongVector x10 = a5.lanewise(XOR, x9);
+        LongVector x11 = x8.lanewise(XOR, x10);
+        LongVector x12 = x8.lanewise(XOR, a3.and(x11));
+        LongVector x13 = x7.lanewise(XOR, x12);
+        LongVector x14 = x7.lanewise(XOR, a4.and(x13));
+        LongVector x15 = x9.lanewise(XOR, x3);
+        LongVector x16 = x9.lanewise(XOR, a5.and(x15));
+        LongVector x17 = x8.lanewise(XOR, x16);
+        LongVector x18 = x8.lanewise(XOR, a3.and(x17));
+        LongVector x19 = x3.and(x1);
+        LongVector x20 = x19.lanewise(XOR, a5.and(x15));
+        LongVector x21 = a5.not();
+        LongVector x22 = x21.or(a6);
+        LongVector x23 = x20.lanewise(XOR, x22);
+        LongVector x24 = x20.lanewise(XOR, a3.and(x23));
+        LongVector x25 = x18.lanewise(XOR, x24);
+        LongVector x26 = x18.lanewise(XOR, a4.and(x25));
+        LongVector x27 = x14.lanewise(XOR, x26);
+        LongVector x28 = x14.lanewise(XOR, a1.and(x27));
+        LongVector x29 = a5.lanewise(XOR, x8);
+        LongVector x30 = x29.lanewise(XOR, a3.and(x21));
+        LongVector x31 = x9.not();
+        LongVector x32 = a6.lanewise(XOR, a5.and(x15));
+        LongVector x33 = a3.lanewise(XOR, x32);
+        LongVector x34 = x30.lanewise(XOR, x33);
+        LongVector x35 = x30.lanewise(XOR, a4.and(x34));
+        LongVector x36 = x29.not();
+        LongVector x37 = x15.not();
+        LongVector x38 = x19.not();
+        LongVector x39 = x37.lanewise(XOR, a5.and(x38));
+        LongVector x40 = x36.lanewise(XOR, x39);
+        LongVector x41 = x36.lanewise(XOR, a3.and(x40));
+        LongVector x42 = x1.or(a6);
+        LongVector x43 = x3.lanewise(XOR, a5.and(x38));
+        LongVector x44 = a5.lanewise(XOR, x1);
+        LongVector x45 = x43.lanewise(XOR, x44);
+        LongVector x46 = x43.lanewise(XOR, a3.and(x45));
+        LongVector x47 = x41.lanewise(XOR, x46);
+        LongVector x48 = x41.lanewise(XOR, a4.and(x47));
+        LongVector x49 = x35.lanewise(XOR, x48);
+        LongVector x50 = x35.lanewise(XOR, a1.and(x49));
+        LongVector x51 = a6.lanewise(XOR, a5.and(x37));
+        LongVector x52 = x2.lanewise(XOR, a5.and(x42));
+        LongVector x53 = x51.lanewise(XOR, x52);
+        LongVector x54 = x51.lanewise(XOR, a3.and(x53));
+        LongVector x55 = x42.not();
+        LongVector x56 = x8.lanewise(XOR, a5.and(x31));
+        LongVector x57 = x43.lanewise(XOR, a3.and(x53));
+        LongVector x58 = x54.lanewise(XOR, x57);
+        LongVector x59 = x54.lanewise(XOR, a4.and(x58));
+        LongVector x60 = a2.lanewise(XOR, a5.and(x15));
+        LongVector x61 = x8.and(x21);
+        LongVector x62 = x60.lanewise(XOR, a3.and(x43));
+        LongVector x63 = x44.lanewise(XOR, a3.and(x43));
+        LongVector x64 = x62.lanewise(XOR, x63);
+        LongVector x65 = x62.lanewise(XOR, a4.and(x64));
+        LongVector x66 = x59.lanewise(XOR, x65);
+        LongVector x67 = x59.lanewise(XOR, a1.and(x66));
+        LongVector x68 = a5.lanewise(XOR, a3.and(x1));
+        LongVector x69 = a2.lanewise(XOR, a5.and(x31));
+        LongVector x70 = x38.lanewise(XOR, a5.and(x37));
+        LongVector x71 = x69.lanewise(XOR, x70);
+        LongVector x72 = x69.lanewise(XOR, a3.and(x71));
+        LongVector x73 = x68.lanewise(XOR, x72);
+        LongVector x74 = x68.lanewise(XOR, a4.and(x73));
+        LongVector x75 = x10.not();
+        LongVector x76 = x75.lanewise(XOR, a3.and(x11));
+        LongVector x77 = x8.lanewise(XOR, a3.and(x21));
+        LongVector x78 = x76.lanewise(XOR, x77);
+        LongVector x79 = x76.lanewise(XOR, a4.and(x78));
+        LongVector x80 = x74.lanewise(XOR, x79);
+        LongVector x81 = x74.lanewise(XOR, a1.and(x80));
+        xorInto(out, o1, x28);
+        xorInto(out, o2, x50);
+        xorInto(out, o3, x67);
+        xorInto(out, o4, x81);
+    }
+
+    private static void s7(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a2.and(a4);
+        LongVector x2 = a5.lanewise(XOR, x1);
+        LongVector x3 = a2.not();
+        LongVector x4 = a2.lanewise(XOR, a4);
+        LongVector x5 = a4.not();
+        LongVector x6 = x3.lanewise(XOR, a5.and(x5));
+        LongVector x7 = x2.lanewise(XOR, x6);
+        LongVector x8 = x2.lanewise(XOR, a3.and(x7));
+        LongVector x9 = a2.or(a4);
+        LongVector x10 = x4.lanewise(XOR, a5.and(x1));
+        LongVector x11 = x4.not();
+        LongVector x12 = a4.and(x3);
+        LongVector x13 = x11.lanewise(XOR, x12);
+        LongVector x14 = x11.lanewise(XOR, a5.and(x13));
+        LongVector x15 = x10.lanewise(XOR, x14);
+        LongVector x16 = x10.lanewise(XOR, a3.and(x15));
+        LongVector x17 = x8.lanewise(XOR, x16);
+        LongVector x18 = x8.lanewise(XOR, a1.and(x17));
+        LongVector x19 = x2.not();
+        LongVector x20 = a3.lanewise(XOR, x19);
+        LongVector x21 = x12.not();
+        LongVector x22 = x4.lanewise(XOR, a5.and(x21));
+        LongVector x23 = x4.lanewise(XOR, a5.and(x9));
+        LongVector x24 = x15.not();
+        LongVector x25 = x22.lanewise(XOR, a3.and(x24));
+        LongVector x26 = x20.lanewise(XOR, x25);
+        LongVector x27 = x20.lanewise(XOR, a1.and(x26));
+        LongVector x28 = x18.lanewise(XOR, x27);
+        LongVector x29 = x18.lanewise(XOR, a6.and(x28));
+        LongVector x30 = x9.not();
+        LongVector x31 = a5.lanewise(XOR, x30);
+        LongVector x32 = a5.lanewise(XOR, x21);
+        LongVector x33 = x31.lanewise(XOR, a3.and(a2));
+        LongVector x34 = x33.lanewise(XOR, x8);
+        LongVector x35 = x33.lanewise(XOR, a1.and(x34));
+        LongVector x36 = x1.not();
+        LongVector x37 = x21.lanewise(XOR, a5.and(x36));
+        LongVector x38 = x30.lanewise(XOR, a5.and(x21));
+        LongVector x39 = x37.lanewise(XOR, x38);
+        LongVector x40 = x37.lanewise(XOR, a3.and(x39));
+        LongVector x41 = a5.lanewise(XOR, x3);
+        LongVector x42 = x13.not();
+        LongVector x43 = a5.lanewise(XOR, x42);
+        LongVector x44 = x41.lanewise(XOR, a3.and(x36));
+        LongVector x45 = x40.lanewise(XOR, x44);
+        LongVector x46 = x40.lanewise(XOR, a1.and(x45));
+        LongVector x47 = x35.lanewise(XOR, x46);
+        LongVector x48 = x35.lanewise(XOR, a6.and(x47));
+        LongVector x49 = a3.lanewise(XOR, x22);
+        LongVector x50 = x9.lanewise(XOR, a5.and(a4));
+        LongVector x51 = x12.lanewise(XOR, a5.and(x11));
+        LongVector x52 = x50.lanewise(XOR, x51);
+        LongVector x53 = x50.lanewise(XOR, a3.and(x52));
+        LongVector x54 = x49.lanewise(XOR, x53);
+        LongVector x55 = x49.lanewise(XOR, a1.and(x54));
+        LongVector x56 = x7.not();
+        LongVector x57 = x4.lanewise(XOR, x56);
+        LongVector x58 = x4.lanewise(XOR, a3.and(x57));
+        LongVector x59 = x30.lanewise(XOR, a5.and(x1));
+        LongVector x60 = a3.lanewise(XOR, x59);
+        LongVector x61 = x58.lanewise(XOR, x60);
+        LongVector x62 = x58.lanewise(XOR, a1.and(x61));
+        LongVector x63 = x55.lanewise(XOR, x62);
+        LongVector x64 = x55.lanewise(XOR, a6.and(x63));
+        LongVector x65 = x6.not();
+        LongVector x66 = a5.lanewise(XOR, x5);
+        LongVector x67 = x65.lanewise(XOR, x66);
+        LongVector x68 = x65.lanewise(XOR, a3.and(x67));
+        LongVector x69 = a1.lanewise(XOR, x68);
+        LongVector x70 = x13.lanewise(XOR, a5.and(x21));
+        LongVector x71 = x37.not();
+        LongVector x72 = x70.lanewise(XOR, a3.and(x67));
+        LongVector x73 = x14.not();
+        LongVector x74 = a3.lanewise(XOR, x73);
+        LongVector x75 = x72.lanewise(XOR, x74);
+        LongVector x76 = x72.lanewise(XOR, a1.and(x75));
+        LongVector x77 = x69.lanewise(XOR, x76);
+        LongVector x78 = x69.lanewise(XOR, a6.and(x77));
+        xorInto(out, o1, x29);
+        xorInto(out, o2, x48);
+        xorInto(out, o3, x64);
+        xorInto(out, o4, x78);
+    }
+
+    private static void s8(long[] in, long[] key, int[] e, int[] k, int first, long[] out, int o1, int o2,
+            int o3, int o4) {
+        LongVector a1 = input(in, key, e[first], k[first]);
+        LongVector a2 = input(in, key, e[first + 1], k[first + 1]);
+        LongVector a3 = input(in, key, e[first + 2], k[first + 2]);
+        LongVector a4 = input(in, key, e[first + 3], k[first + 3]);
+        LongVector a5 = input(in, key, e[first + 4], k[first + 4]);
+        LongVector a6 = input(in, key, e[first + 5], k[first + 5]);
+        LongVector x1 = a5.not();
+        LongVector x2 = a2.or(x1);
+        LongVector x3 = a3.lanewise(XOR, x2);
+        LongVector x4 = a2.lanewise(XOR, x1);
+        LongVector x5 = x4.lanewise(XOR, a3.and(a2));
+        LongVector x6 = x3.lanewise(XOR, x5);
+        LongVector x7 = x3.lanewise(XOR, a4.and(x6));
+        LongVector x8 = x2.not();
+        LongVector x9 = a2.not();
+        LongVector x10 = x9.or(x1);
+        LongVector x11 = x8.lanewise(XOR, a3.and(x1));
+        LongVector x12 = a2.lanewise(XOR, a3.and(x1));
+        LongVector x13 = x11.lanewise(XOR, x12);
+        LongVector x14 = x11.lanewise(XOR, a4.and(x13));
+        LongVector x15 = x7.lanewise(XOR, x14);
+        LongVector x16 = x7.lanewise(XOR, a1.and(x15));
+        LongVector x17 = x4.not();
+        LongVector x18 = a3.lanewise(XOR, x17);
+        LongVector x19 = x9.or(a5);
+        LongVector x20 = a3.lanewise(XOR, x19);
+        LongVector x21 = x18.lanewise(XOR, a4.and(x2));
+        LongVector x22 = a2.lanewise(XOR, a3.and(x13));
+        LongVector x23 = x1.lanewise(XOR, a3.and(x13));
+        LongVector x24 = x22.lanewise(XOR, a4.and(x4));
+        LongVector x25 = x21.lanewise(XOR, x24);
+        LongVector x26 = x21.lanewise(XOR, a1.and(x25));
+        LongVector x27 = x16.lanewise(XOR, x26);
+        LongVector x28 = x16.lanewise(XOR, a6.and(x27));
+        LongVector x29 = x13.not();
+        LongVector x30 = x29.lanewise(XOR, a3.and(x17));
+        LongVector x31 = a5.lanewise(XOR, a3.and(x17));
+        LongVector x32 = x30.lanewise(XOR, a4.and(x19));
+        LongVector x33 = x18.not();
+        LongVector x34 = x33.lanewise(XOR, x5);
+        LongVector x35 = x33.lanewise(XOR, a4.and(x34));
+        LongVector x36 = x32.lanewise(XOR, x35);
+        LongVector x37 = x32.lanewise(XOR, a1.and(x36));
+        LongVector x38 = x32.not();
+        LongVector x39 = a4.lanewise(XOR, x12);
+        LongVector x40 = x38.lanewise(XOR, x39);
+        LongVector x41 = x38.lanewise(XOR, a1.and(x40));
+        LongVector x42 = x37.lanewise(XOR, x41);
+        LongVector x43 = x37.lanewise(XOR, a6.and(x42));
+        LongVector x44 = x17.lanewise(XOR, a3.and(x1));
+        LongVector x45 = x44.lanewise(XOR, a4.and(a5));
+        LongVector x46 = x19.lanewise(XOR, a3.and(x10));
+        LongVector x47 = a4.lanewise(XOR, x46);
+        LongVector x48 = x45.lanewise(XOR, x47);
+        LongVector x49 = x45.lanewise(XOR, a1.and(x48));
+        LongVector x50 = x8.lanewise(XOR, a3.and(x4));
+        LongVector x51 = x50.lanewise(XOR, x12);
+        LongVector x52 = x50.lanewise(XOR, a4.and(x51));
+        LongVector x53 = x1.lanewise(XOR, a3.and(x9));
+        LongVector x54 = a3.lanewise(XOR, x9);
+        LongVector x55 = x5.not();
+        LongVector x56 = x53.lanewise(XOR, a4.and(x55));
+        LongVector x57 = x52.lanewise(XOR, x56);
+        LongVector x58 = x52.lanewise(XOR, a1.and(x57));
+        LongVector x59 = x49.lanewise(XOR, x58);
+        LongVector x60 = x49.lanewise(XOR, a6.and(x59));
+        LongVector x61 = x26.not();
+        LongVector x62 = x19.lanewise(XOR, a3.and(x4));
+        LongVector x63 = x62.lanewise(XOR, a4.and(x11));
+        LongVector x64 = x17.lanewise(XOR, a3.and(a5));
+        LongVector x65 = x64.lanewise(XOR, x55);
+        LongVector x66 = x64.lanewise(XOR, a4.and(x65));
+        LongVector x67 = x63.lanewise(XOR, x66);
+        LongVector x68 = x63.lanewise(XOR, a1.and(x67));
+        LongVector x69 = x61.lanewise(XOR, x68);
+        LongVector x70 = x61.lanewise(XOR, a6.and(x69));
+        xorInto(out, o1, x28);
+        xorInto(out, o2, x43);
+        xorInto(out, o3, x60);
+        xorInto(out, o4, x70);
+    }
+}
@@ -0,0 +1,95 @@
+package cracker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Dictionary words by index, read into caller buffers so that guessing never
+ * needs a String per word.
+ *
+ * A list may still be loading when it is handed out: {@link #await} and
+ * {@link #available} let a stage start on the words that are ready, while
+ * {@link #size} waits for all of them.
+ */
+interface WordList {
+
+    /** Waits until word {@code index} is loaded; false if the list has no such word. */
+    boolean await(int index);
+
+    /** How many words are loaded so far, without waiting. */
+    int available();
+
+    /** The number of words, once all are loaded. */
+    int size();
+
+    /** An upper bound on the word's length in chars. */
+    int maxLength(int index);
+
+    /** Copies the word into {@code dst}, which holds at least {@link #maxLength} chars, and returns its length. */
+    int getChars(int index, char[] dst);
+
+    /** The word as a String, for printing. */
+    String get(int index);
+
+    /** Checksum of every word, to tell whether two lists hold the same dictionary. */
+    long checksum();
+
+    default boolean isEmpty() {
+        return !await(0);
+    }
+
+    /** Opens a dictionary file, compiled by {@link CompiledWordList#compile} or plain text. */
+    static WordList open(Path file) throws IOException {
+        return CompiledWordList.isCompiled(file) ? CompiledWordList.open(file) : MappedWordList.open(file);
+    }
+
+    /** A fully loaded list of the given words. */
+    static WordList of(List<String> words) {
+        return new WordList() {
+            @Override
+            public boolean await(int index) {
+                return index < words.size();
+            }
+
+            @Override
+            public int available() {
+                return words.size();
+            }
+
+            @Override
+            public int size() {
+                return words.size();
+            }
+
+            @Override
+            public int maxLength(int index) {
+                return words.get(index).length();
+            }
+
+            @Override
+            public int getChars(int index, char[] dst) {
+                String word = words.get(index);
+                word.getChars(0, word.length(), dst, 0);
+                return word.length();
+            }
+
+            @Override
+            public String get(int index) {
+                return words.get(index);
+            }
+
+            @Override
+            public long checksum() {
+                CRC32 crc = new CRC32();
+                for (String word : words) {
+                    crc.update(word.getBytes(StandardCharsets.UTF_8));
+                    crc.update('\n');
+                }
+                return crc.getValue();
+            }
+        };
+    }
+}
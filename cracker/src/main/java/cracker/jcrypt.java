@@ -7,6 +7,8 @@
  *
  ****************************************************************************/
 
+package cracker;
+
 public class jcrypt
 {
    private jcrypt() {}
@@ -363,43 +365,170 @@ public class jcrypt
       0x73, 0x74, 0x75, 0x76, 0x77, 0x78, 0x79, 0x7A
    };
 
-   private static final int byteToUnsigned(byte b)
+   private static final int char_2cov[] = new int[128];
+
+   static
    {
-      int value = (int)b;
+      java.util.Arrays.fill(char_2cov, -1);
 
-      return(value >= 0 ? value : value + 256);
+      for(int i = 0; i < cov_2char.length; i ++)
+         char_2cov[cov_2char[i]] = i;
    }
 
-   private static int fourBytesToInt(byte b[], int offset)
+   /**
+    * Caller-owned working state for {@link #cryptRaw}. Holding one per
+    * thread keeps the hash loop free of allocation.
+    */
+   public static final class Scratch
    {
-      int value;
+      final KeySchedule keySchedule = new KeySchedule();
+
+      /* Small direct-mapped memo in front of the shared salt table cache */
+      final int    cachedSalt[]  = new int[SCRATCH_SALTS];
+      final long   cachedSwap[][] = new long[SCRATCH_SALTS][];
 
-      value  =  byteToUnsigned(b[offset++]);
-      value |= (byteToUnsigned(b[offset++]) <<  8);
-      value |= (byteToUnsigned(b[offset++]) << 16);
-      value |= (byteToUnsigned(b[offset++]) << 24);
+      public Scratch()
+      {
+         java.util.Arrays.fill(cachedSalt, -1);
+      }
 
-      return(value);
+      long [] swapTable(int saltBits)
+      {
+         int slot = saltBits & (SCRATCH_SALTS - 1);
+
+         if(cachedSalt[slot] != saltBits)
+         {
+            cachedSwap[slot] = jcrypt.swapTable(saltBits);
+            cachedSalt[slot] = saltBits;
+         }
+         return(cachedSwap[slot]);
+      }
    }
 
-   private static final void intToFourBytes(int iValue, byte b[], int offset)
+   /**
+    * A DES key schedule that is updated by XOR rather than rebuilt.
+    *
+    * The PC-1/PC-2 schedule is linear in the key bits, so the schedule for
+    * any key is the XOR of one precomputed row per key character. Moving to
+    * a key that differs from the current one in a single character, as
+    * consecutive prepend or append mangles do, costs a single row XOR.
+    */
+   public static final class KeySchedule
    {
-      b[offset++] = (byte)((iValue)        & 0xff);
-      b[offset++] = (byte)((iValue >>> 8 ) & 0xff);
-      b[offset++] = (byte)((iValue >>> 16) & 0xff);
-      b[offset++] = (byte)((iValue >>> 24) & 0xff);
+      final int schedule[] = new int[ITERATIONS * 2];
+      private long key; /* canonical key the schedule holds; zero key, zero schedule */
+
+      /** Moves the schedule to a {@link jcrypt#canonicalKey}. */
+      public void set(long newKey)
+      {
+         long diff = newKey ^ key;
+
+         for(int i = 0; diff != 0; i ++, diff >>>= 7)
+         {
+            int changed = (int)(diff & 0x7f);
+
+            if(changed != 0)
+            {
+               int row = (i * 128 + changed) * ITERATIONS * 2;
+
+               for(int j = 0; j < ITERATIONS * 2; j ++)
+                  schedule[j] ^= schedule_rows[row + j];
+            }
+         }
+         key = newKey;
+      }
+
+      public long key()
+      {
+         return(key);
+      }
    }
 
-   private static final void PERM_OP(int a, int b, int n, int m, int results[])
+   /*
+    * Row (i * 128 + v) is the schedule of a key whose only non-zero
+    * character is v at position i. Rows for two values at one position XOR
+    * to the row of their XOR, which is what KeySchedule.set relies on.
+    */
+   private static final int schedule_rows[] = new int[8 * 128 * ITERATIONS * 2];
+
+   static
    {
-      int t;
+      int row[] = new int[ITERATIONS * 2];
+
+      for(int i = 0; i < 8; i ++)
+      {
+         for(int v = 0; v < 128; v ++)
+         {
+            int b = v << (8 * (i % 4) + 1);
+
+            des_set_key(i < 4 ? b : 0, i < 4 ? 0 : b, row);
+            System.arraycopy(row, 0, schedule_rows, (i * 128 + v) * ITERATIONS * 2, row.length);
+         }
+      }
+   }
+
+   private static final int SCRATCH_SALTS    = 64;
+   private static final int SALT_CACHE_SIZE  = 512;
+
+   /*
+    * Salt tables by the 12-bit saltBits value, read without locks. Scratch
+    * instances go through their own memo first, so this is only consulted
+    * when a thread moves on to a salt it has not seen lately. Only inserts
+    * lock: once SALT_CACHE_SIZE tables are held, each insert drops the
+    * oldest, so memory stays bounded however many salts a run meets.
+    */
+   private static final java.util.concurrent.atomic.AtomicReferenceArray<long[]> saltTables =
+      new java.util.concurrent.atomic.AtomicReferenceArray<>(1 << 12);
+   private static final int  insertedSalts[] = new int[SALT_CACHE_SIZE]; /* in insert order, a ring */
+   private static       long inserted;                                   /* guarded by insertedSalts */
+
+   private static long [] swapTable(int saltBits)
+   {
+      long swap[] = saltTables.get(saltBits);
+
+      if(swap != null)
+         return(swap);
+
+      swap = buildSwapTable(saltBits & 0x3f, (saltBits >>> 6) << 4);
+
+      synchronized(insertedSalts)
+      {
+         long raced[] = saltTables.get(saltBits);
+
+         if(raced != null)
+            return(raced);
+
+         int slot = (int)(inserted++ % SALT_CACHE_SIZE);
+
+         if(inserted > SALT_CACHE_SIZE)
+            saltTables.set(insertedSalts[slot], null);
+         insertedSalts[slot] = saltBits;
+         saltTables.set(saltBits, swap);
+      }
+      return(swap);
+   }
 
-      t = ((a >>> n) ^ b) & m;
-      a ^= t << n;
-      b ^= t;
+   /*
+    * The salt swaps E-box bits between the two halves D_ENCRYPT feeds to the
+    * S-boxes. E0 and E1 only reach bits 0..9 of R ^ (R >>> 16), so for a
+    * given salt both perturbations can be read from a 1024 entry table:
+    * the u term in the low word of each entry, the t term in the high word.
+    */
+   private static long [] buildSwapTable(int Eswap0, int Eswap1)
+   {
+      long swap[] = new long[1024];
+
+      for(int x = 0; x < swap.length; x ++)
+      {
+         int u = x & Eswap0;
+         int v = x & Eswap1;
 
-      results[0] = a;
-      results[1] = b;
+         u ^= u << 16;
+         v ^= v << 16;
+
+         swap[x] = ((long)v << 32) | (u & 0xffffffffL);
+      }
+      return(swap);
    }
 
    private static final int HPERM_OP(int a, int n, int m)
@@ -412,35 +541,29 @@ public class jcrypt
       return(a);
    }
 
-   private static int [] des_set_key(byte key[])
+   /*
+    * c and d are the two key halves, little-endian, as the original
+    * byte-array version read them. The PERM_OPs are written out inline so
+    * that no results array is needed.
+    */
+   private static void des_set_key(int c, int d, int schedule[])
    {
-      int schedule[] = new int[ITERATIONS * 2];
-
-      int c = fourBytesToInt(key, 0);
-      int d = fourBytesToInt(key, 4);
-
-      int results[] = new int[2];
+      int t;
 
-      PERM_OP(d, c, 4, 0x0f0f0f0f, results);
-      d = results[0]; c = results[1];
+      t = ((d >>> 4) ^ c) & 0x0f0f0f0f; d ^= t << 4; c ^= t;
 
       c = HPERM_OP(c, -2, 0xcccc0000);
       d = HPERM_OP(d, -2, 0xcccc0000);
 
-      PERM_OP(d, c, 1, 0x55555555, results);
-      d = results[0]; c = results[1];
-
-      PERM_OP(c, d, 8, 0x00ff00ff, results);
-      c = results[0]; d = results[1];
-
-      PERM_OP(d, c, 1, 0x55555555, results);
-      d = results[0]; c = results[1];
+      t = ((d >>> 1) ^ c) & 0x55555555; d ^= t << 1; c ^= t;
+      t = ((c >>> 8) ^ d) & 0x00ff00ff; c ^= t << 8; d ^= t;
+      t = ((d >>> 1) ^ c) & 0x55555555; d ^= t << 1; c ^= t;
 
       d = (((d & 0x000000ff) <<  16) |  (d & 0x0000ff00)     |
            ((d & 0x00ff0000) >>> 16) | ((c & 0xf0000000) >>> 4));
       c &= 0x0fffffff;
 
-      int s, t;
+      int s;
       int j = 0;
 
       for(int i = 0; i < ITERATIONS; i ++)
@@ -470,27 +593,24 @@ public class jcrypt
              skb[6][ (d >>>15) & 0x3f                       ]|
              skb[7][((d >>>21) & 0x0f) | ((d >>> 22) & 0x30)];
 
-         schedule[j++] = ((t <<  16) | (s & 0x0000ffff)) & 0xffffffff;
-         s             = ((s >>> 16) | (t & 0xffff0000));
+         schedule[j++] = (t <<  16) | (s & 0x0000ffff);
+         s             = (s >>> 16) | (t & 0xffff0000);
 
-         s             = (s << 4) | (s >>> 28);
-         schedule[j++] = s & 0xffffffff;
+         schedule[j++] = (s << 4) | (s >>> 28);
       }
-      return(schedule);
    }
 
    private static final int D_ENCRYPT
    (
-      int L, int R, int S, int E0, int E1, int s[]
+      int L, int R, int S, long swap[], int s[]
    )
    {
-      int t, u, v;
+      int t, u;
+      long w;
 
-      v = R ^ (R >>> 16);
-      u = v & E0;
-      v = v & E1;
-      u = (u ^ (u << 16)) ^ R ^ s[S];
-      t = (v ^ (v << 16)) ^ R ^ s[S + 1];
+      w = swap[(R ^ (R >>> 16)) & 0x3ff];
+      u = (int)w ^ R ^ s[S];
+      t = (int)(w >>> 32) ^ R ^ s[S + 1];
       t = (t >>> 4) | (t << 28);
 
       L ^= SPtrans[1][(t       ) & 0x3f] |
@@ -505,7 +625,11 @@ public class jcrypt
       return(L);
    }
 
-   private static final int [] body(int schedule[], int Eswap0, int Eswap1)
+   /*
+    * Runs the 25 salted DES encryptions of a zero block and returns the
+    * output as the 64 bits the hash string encodes, most significant first.
+    */
+   private static final long body(int schedule[], long swap[])
    {
       int left = 0;
       int right = 0;
@@ -515,8 +639,8 @@ public class jcrypt
       {
          for(int i = 0; i < ITERATIONS * 2; i += 4)
          {
-            left  = D_ENCRYPT(left,  right, i,     Eswap0, Eswap1, schedule);
-            right = D_ENCRYPT(right, left,  i + 2, Eswap0, Eswap1, schedule);
+            left  = D_ENCRYPT(left,  right, i,     swap, schedule);
+            right = D_ENCRYPT(right, left,  i + 2, swap, schedule);
          }
          t     = left; 
          left  = right; 
@@ -528,89 +652,115 @@ public class jcrypt
       right = (left >>> 1) | (left << 31);
       left  = (t    >>> 1) | (t    << 31);
 
-      left  &= 0xffffffff;
-      right &= 0xffffffff;
-
-      int results[] = new int[2];
+      t = ((right >>>  1) ^ left ) & 0x55555555; right ^= t <<  1; left  ^= t;
+      t = ((left  >>>  8) ^ right) & 0x00ff00ff; left  ^= t <<  8; right ^= t;
+      t = ((right >>>  2) ^ left ) & 0x33333333; right ^= t <<  2; left  ^= t;
+      t = ((left  >>> 16) ^ right) & 0x0000ffff; left  ^= t << 16; right ^= t;
+      t = ((right >>>  4) ^ left ) & 0x0f0f0f0f; right ^= t <<  4; left  ^= t;
 
-      PERM_OP(right, left, 1, 0x55555555, results); 
-      right = results[0]; left = results[1];
+      return(((long)Integer.reverseBytes(left) << 32) |
+             (Integer.reverseBytes(right) & 0xffffffffL));
+   }
 
-      PERM_OP(left, right, 8, 0x00ff00ff, results); 
-      left = results[0]; right = results[1];
+   /**
+    * Returns the 12-bit salt value for a two character salt: the first
+    * character's con_salt entry in the low six bits, the second's above it.
+    */
+   public static final int saltBits(String salt)
+   {
+      while(salt.length() < 2)
+         salt += "A";
 
-      PERM_OP(right, left, 2, 0x33333333, results); 
-      right = results[0]; left = results[1];
+      return(con_salt[(int)salt.charAt(0)] | (con_salt[(int)salt.charAt(1)] << 6));
+   }
 
-      PERM_OP(left, right, 16, 0x0000ffff, results);
-      left = results[0]; right = results[1];
+   /**
+    * Decodes the eleven hash characters that follow the salt back into the
+    * raw 64-bit value {@link #cryptRaw} returns.
+    *
+    * @throws IllegalArgumentException if no password can produce the hash
+    */
+   public static final long decodeHash(String encrypted)
+   {
+      if(encrypted.length() != 13)
+         throw new IllegalArgumentException("Not a 13 character crypt hash: " + encrypted);
 
-      PERM_OP(right, left, 4, 0x0f0f0f0f, results);
-      right = results[0]; left = results[1];
+      long raw = 0;
 
-      int out[] = new int[2];
+      for(int i = 2; i < 13; i ++)
+      {
+         char c     = encrypted.charAt(i);
+         int  value = c < 128 ? char_2cov[c] : -1;
 
-      out[0] = left; out[1] = right;
+         if(value < 0)
+            throw new IllegalArgumentException("Invalid character in crypt hash: " + encrypted);
 
-      return(out);
+         if(i < 12)
+            raw = (raw << 6) | value;
+         else if((value & 0x03) != 0)
+            throw new IllegalArgumentException("Trailing bits set in crypt hash: " + encrypted);
+         else
+            raw = (raw << 4) | (value >>> 2);
+      }
+      return(raw);
    }
 
-   public static final String crypt(String salt, String original)
+   /**
+    * Allocation-free form of {@link #crypt}: hashes {@code original} under
+    * the given {@link #saltBits} value and returns the raw 64-bit output
+    * instead of its printable encoding.
+    */
+   public static final long cryptRaw(int saltBits, String original, Scratch scratch)
    {
-      while(salt.length() < 2)
-         salt += "A";
-
-      StringBuffer buffer = new StringBuffer("             ");
+      return(cryptRaw(saltBits, canonicalKey(original), scratch));
+   }
 
-      char charZero = salt.charAt(0);
-      char charOne  = salt.charAt(1);
+   /**
+    * Same as {@link #cryptRaw(int, String, Scratch)} for a key already
+    * reduced by {@link #canonicalKey}.
+    */
+   public static final long cryptRaw(int saltBits, long key, Scratch scratch)
+   {
+      scratch.keySchedule.set(key);
 
-      buffer.setCharAt(0, charZero);
-      buffer.setCharAt(1, charOne);
+      return(body(scratch.keySchedule.schedule, scratch.swapTable(saltBits)));
+   }
 
-      int Eswap0 = con_salt[(int)charZero];
-      int Eswap1 = con_salt[(int)charOne] << 4;
- 
-      byte key[] = new byte[8];
+   /**
+    * Reduces a password to the key crypt actually uses: the low seven bits
+    * of each of its first eight characters, character i in bits 7i..7i+6.
+    * Two passwords with the same canonical key always hash the same.
+    */
+   public static final long canonicalKey(String original)
+   {
+      long key = 0;
 
-      for(int i = 0; i < key.length; i ++)
-         key[i] = (byte)0;
+      for(int i = 0; i < 8 && i < original.length(); i ++)
+         key |= (long)(original.charAt(i) & 0x7f) << (7 * i);
 
-      for(int i = 0; i < key.length && i < original.length(); i ++)
-      {
-         int iChar = (int)original.charAt(i);
+      return(key);
+   }
 
-         key[i] = (byte)(iChar << 1);
-      }
+   /* Scratch for crypt(), which callers such as Potfile run once per guess */
+   private static final ThreadLocal<Scratch> threadScratch = ThreadLocal.withInitial(Scratch::new);
 
-      int schedule[] = des_set_key(key);
-      int out[]      = body(schedule, Eswap0, Eswap1);
+   public static final String crypt(String salt, String original)
+   {
+      while(salt.length() < 2)
+         salt += "A";
 
-      byte b[] = new byte[9];
+      StringBuffer buffer = new StringBuffer("             ");
 
-      intToFourBytes(out[0], b, 0);
-      intToFourBytes(out[1], b, 4);
-      b[8] = 0;
+      buffer.setCharAt(0, salt.charAt(0));
+      buffer.setCharAt(1, salt.charAt(1));
 
-      for(int i = 2, y = 0, u = 0x80; i < 13; i ++)
-      {
-         for(int j = 0, c = 0; j < 6; j ++)
-         {
-            c <<= 1;
+      long raw = cryptRaw(saltBits(salt), original, threadScratch.get());
 
-            if(((int)b[y] & u) != 0)
-               c |= 1;
+      for(int i = 2; i < 12; i ++)
+         buffer.setCharAt(i, (char)cov_2char[(int)(raw >>> (70 - 6 * i)) & 0x3f]);
 
-            u >>>= 1;
+      buffer.setCharAt(12, (char)cov_2char[(int)(raw & 0x0f) << 2]);
 
-            if(u == 0)
-            {
-               y++;
-               u = 0x80;
-            }
-            buffer.setCharAt(i, (char)cov_2char[c]);
-         }
-      }
       return(buffer.toString());
    }
 
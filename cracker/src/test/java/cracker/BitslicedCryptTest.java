@@ -0,0 +1,190 @@
+package cracker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Known-answer tests of {@link BitslicedCrypt} against {@link jcrypt}: the
+ * hashes and passwords of passwd1.txt and passwd1-plain.txt, and a few more
+ * covering empty, long and punctuated passwords and the edge salt characters.
+ * {@link VectorCryptTest} checks the vector engine against the same answers.
+ */
+final class BitslicedCryptTest {
+
+    /** Hash and password of every account passwd1-plain.txt has cracked. */
+    static final String[][] PASSWD1 = {
+        { "PkkdSxS1T99gQ", "Panello" }, { "X9eZtriXiFfwk", "RoLaNdD" }, { "rfWcgwv8jNr96", "wEffEw" },
+        { "AdBNPRQnXN2m.", "q9f9z1td" }, { "mdxopJ1VUaV2Y", "ADDI" }, { "lBEAZP0FnOYZ6", "Libertarian" },
+        { "U8POmg3M5odS.", "desoppUUpposed" }, { "k0WoVpry.c2ms", "ChIeFl" }, { "y9osUlTVAa8C2", "sam" },
+        { "DLU/NwpHy9EOI", "123456" }, { "J8XNcseXvVMpA", "0taCCat0" }, { "vj/WCovApcTFM", "Seirasrevda" },
+        { "uHJlo8QYqrM/c", "SNIKS" }, { "dviW0bypfBZPA", "zOOSL" }, { "VxkdsymReE9Hk", "ag0a8" },
+        { "4yqnHEGBSZ3YE", "sLiCnE" }, { "bsVnHysYV/d1E", "7Drunke" }, { "UxiB2dOBAMUgY", "letmein" },
+        { "HloyDGmkKU28w", "usenbury" }, { "G1tn.EBEqNIXg", "nsultsstlusni" },
+    };
+
+    /** Salt and password pairs beyond passwd1's. */
+    static final String[][] OTHERS = {
+        { "./", "" }, { "..", "a" }, { "zz", "password" }, { "Ab", "12345678" }, { "9Z", "longer than eight" },
+        { "x/", "~!@#$%^&" }, { "aa", "P a s s" }, { "Zz", "zzzzzzzz" },
+    };
+
+    @Test
+    void jcryptReproducesPasswd1() {
+        for (String[] known : PASSWD1) {
+            assertEquals(known[0], jcrypt.crypt(known[0].substring(0, 2), known[1]), known[1]);
+        }
+    }
+
+    @Test
+    void everyLaneMatchesJcryptUnderEverySalt() {
+        List<String> passwords = passwords(BitslicedCrypt.LANES);
+        BitslicedCrypt crypt = new BitslicedCrypt();
+        for (int lane = 0; lane < BitslicedCrypt.LANES; lane++) {
+            crypt.setKey(lane, jcrypt.canonicalKey(passwords.get(lane)));
+        }
+        long[] hashes = new long[BitslicedCrypt.LANES];
+        for (String salt : salts()) {
+            crypt.crypt(jcrypt.saltBits(salt));
+            crypt.hashes(hashes);
+            long[] expected = expectedHashes(salt, passwords);
+            for (int lane = 0; lane < BitslicedCrypt.LANES; lane++) {
+                assertEquals(expected[lane], crypt.hash(lane), salt + " " + passwords.get(lane));
+            }
+            assertArrayEquals(expected, hashes, salt);
+        }
+    }
+
+    @Test
+    void matchMaskHasExactlyTheLanesOfATarget() {
+        List<String> passwords = passwords(BitslicedCrypt.LANES);
+        passwords.set(3, "letmein");
+        passwords.set(40, "letmein");
+        BitslicedCrypt crypt = new BitslicedCrypt();
+        for (int lane = 0; lane < BitslicedCrypt.LANES; lane++) {
+            crypt.setKey(lane, jcrypt.canonicalKey(passwords.get(lane)));
+        }
+        crypt.crypt(jcrypt.saltBits("Ux"));
+        long letmein = 0;
+        for (int lane = 0; lane < BitslicedCrypt.LANES; lane++) {
+            letmein |= passwords.get(lane).equals("letmein") ? 1L << lane : 0;
+        }
+        assertEquals(3, Long.bitCount(letmein)); // Lanes 3 and 40, and passwd1's own
+        assertEquals(letmein, crypt.matchMask(jcrypt.decodeHash("UxiB2dOBAMUgY")));
+        assertEquals(0, crypt.matchMask(jcrypt.decodeHash("G1tn.EBEqNIXg")));
+        for (String[] known : PASSWD1) {
+            int lane = passwords.indexOf(known[1]);
+            if (known[0].startsWith("Ux") || lane < 0) {
+                continue;
+            }
+            crypt.crypt(jcrypt.saltBits(known[0].substring(0, 2)));
+            assertEquals(1L << lane, crypt.matchMask(jcrypt.decodeHash(known[0])), known[1]);
+        }
+    }
+
+    @Test
+    void partialBatchChecksOnlyItsOwnLanes() {
+        assertPartialBatches(BatchVerifier.Engine.BITSLICE, BitslicedCrypt.LANES);
+    }
+
+    /**
+     * Runs a full batch and then partial ones through a verifier of the engine,
+     * against passwd1's hashes and against a salt with enough hashes to be
+     * looked up, and checks that each crack is reported once, at the position
+     * of its guess, and that lanes left over from an earlier batch never are.
+     */
+    static void assertPartialBatches(BatchVerifier.Engine engine, int lanes) {
+        List<String> hashes = new ArrayList<>();
+        for (String[] known : PASSWD1) {
+            hashes.add(known[0]);
+        }
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i < BatchVerifier.LOOKUP_TARGETS + 10; i++) {
+            many.add(jcrypt.crypt("mq", "word" + i));
+        }
+        assertPartialBatches(engine, lanes, hashes, i -> PASSWD1[i][1]);
+        assertPartialBatches(engine, lanes, many, i -> "word" + i);
+    }
+
+    private static void assertPartialBatches(BatchVerifier.Engine engine, int lanes, List<String> hashes,
+            IntFunction<String> password) {
+        SaltIndex index = new SaltIndex(hashes);
+        List<long[]> reported = new ArrayList<>();
+        BatchVerifier verifier = new BatchVerifier(index, engine, (target, position) ->
+                reported.add(new long[] { target, position }));
+
+        // A full batch whose last lane cracks the first hash, which stays unclaimed
+        for (int lane = 0; lane < lanes - 1; lane++) {
+            verifier.add(jcrypt.canonicalKey("#" + lane), 1000 + lane);
+        }
+        verifier.add(jcrypt.canonicalKey(password.apply(0)), 1000 + lanes - 1);
+        assertEquals(1, reported.size());
+        assertArrayEquals(new long[] { index.targetOf(0), 1000 + lanes - 1 }, reported.get(0));
+        reported.clear();
+
+        // Partial batches: the stale last lane must not crack the first hash again
+        verifier.add(jcrypt.canonicalKey("nothing"), 1);
+        verifier.flush();
+        assertTrue(reported.isEmpty(), "stale lane reported");
+
+        verifier.add(jcrypt.canonicalKey("nothing"), 2);
+        verifier.add(jcrypt.canonicalKey(password.apply(1)), 3);
+        verifier.add(jcrypt.canonicalKey(password.apply(hashes.size() - 1)), 4);
+        verifier.flush();
+        assertEquals(2, reported.size());
+        Set<String> found = new LinkedHashSet<>();
+        for (long[] crack : reported) {
+            found.add(crack[0] + "@" + crack[1]);
+        }
+        assertEquals(Set.of(index.targetOf(1) + "@3", index.targetOf(hashes.size() - 1) + "@4"), found);
+    }
+
+    /** Every salt of the known answers. */
+    static Set<String> salts() {
+        Set<String> salts = new LinkedHashSet<>();
+        for (String[] known : PASSWD1) {
+            salts.add(known[0].substring(0, 2));
+        }
+        for (String[] other : OTHERS) {
+            salts.add(other[0]);
+        }
+        return salts;
+    }
+
+    /** The known passwords and then random ones, one for each of {@code lanes} lanes. */
+    static List<String> passwords(int lanes) {
+        List<String> passwords = new ArrayList<>();
+        for (String[] known : PASSWD1) {
+            passwords.add(known[1]);
+        }
+        for (String[] other : OTHERS) {
+            passwords.add(other[1]);
+        }
+        Random random = new Random(lanes);
+        while (passwords.size() < lanes) {
+            char[] password = new char[1 + random.nextInt(10)];
+            for (int i = 0; i < password.length; i++) {
+                password[i] = (char) (' ' + random.nextInt(95));
+            }
+            passwords.add(new String(password));
+        }
+        return passwords.subList(0, lanes);
+    }
+
+    /** Each password's hash under the salt, by jcrypt. */
+    static long[] expectedHashes(String salt, List<String> passwords) {
+        long[] expected = new long[passwords.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = jcrypt.decodeHash(jcrypt.crypt(salt, passwords.get(i)));
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,199 @@
+package cracker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the rules language: what each command does, that the built-in
+ * rules make exactly the mangles the crackers made before there were rules,
+ * and the errors a bad rules file gets.
+ */
+final class ManglerTest {
+
+    @Test
+    void eachCommand() {
+        assertMangles(":", "word", "word");
+        assertMangles("l", "PaSs", "pass");
+        assertMangles("u", "PaSs", "PASS");
+        assertMangles("c", "pASS", "Pass");
+        assertMangles("C", "Pass", "pASS");
+        assertMangles("t", "PaSs1", "pAsS1");
+        assertMangles("T1", "pass", "pAss");
+        assertMangles("TZ", "pass", "pass");
+        assertMangles("w", "string1", "StRiNg1");
+        assertMangles("W", "string", "sTrInG");
+        assertMangles("r", "abc", "cba");
+        assertMangles("d", "ab", "abab");
+        assertMangles("f", "ab", "abba");
+        assertMangles("{", "abc", "bca");
+        assertMangles("}", "abc", "cab");
+        assertMangles("[", "abc", "bc");
+        assertMangles("]", "abc", "ab");
+        assertMangles("D1", "abc", "ac");
+        assertMangles("D5", "abc", "abc");
+        assertMangles("'2", "abcd", "ab");
+        assertMangles("'9", "abcd", "abcd");
+        assertMangles("^x", "ab", "xab");
+        assertMangles("$1", "ab", "ab1");
+        assertMangles("$ ", "ab", "ab ");
+        assertMangles("i1-", "ab", "a-b");
+        assertMangles("i9-", "ab", "ab");
+        assertMangles("o0X", "ab", "Xb");
+        assertMangles("o5X", "ab", "ab");
+        assertMangles("sab", "banana", "bbnbnb");
+        assertMangles("@a", "banana", "bnn");
+        assertMangles("<4", "abc", "abc");
+        assertMangles("<3", "abc", null);
+        assertMangles(">2", "abc", "abc");
+        assertMangles(">3", "abc", null);
+        assertMangles("_3", "abc", "abc");
+        assertMangles("_4", "abc", null);
+        assertMangles("!z", "abc", "abc");
+        assertMangles("!a", "abc", null);
+        assertMangles("/a", "abc", "abc");
+        assertMangles("/z", "abc", null);
+        assertMangles("[", "a", null); // Nothing left
+    }
+
+    @Test
+    void commandsRunInOrder() {
+        assertMangles("l $1 c", "WORD", "Word1");
+        assertMangles("r:^x", "ab", "xba");
+        assertMangles("$\\[", "ab", "ab[");
+        assertMangles("s\\ _", "a b", "a_b");
+    }
+
+    @Test
+    void classesExpandInOrder() {
+        Mangler mangler = Mangler.compile(List.of("$[0-2]", "^[a\\-c]", "$[0-9]$[0-9]"));
+        assertEquals(3 + 3 + 100, mangler.ruleCount());
+        List<String> mangles = new ArrayList<>();
+        for (int rule = 0; rule < 6; rule++) {
+            mangles.add(mangle(mangler, rule, "w"));
+        }
+        assertEquals(List.of("w0", "w1", "w2", "aw", "-w", "cw"), mangles);
+        assertEquals("w23", mangle(mangler, 6 + 23, "w"));
+    }
+
+    @Test
+    void commentsAndBlankLinesAreSkipped() {
+        Mangler mangler = Mangler.compile(List.of("# reverse", "", "   ", "  r"));
+        assertEquals(1, mangler.ruleCount());
+        assertEquals("cba", mangle(mangler, 0, "abc"));
+    }
+
+    @Test
+    void defaultRulesMakeTheOriginalMangles() {
+        assertEquals(136, Mangler.DEFAULT.ruleCount());
+        for (String word : List.of("password", "Hello", "a", "ab", "abc123", "MiXeD", "12345678901", "x-y z")) {
+            Set<String> mangles = new HashSet<>();
+            for (int rule = 0; rule < Mangler.DEFAULT.ruleCount(); rule++) {
+                String mangled = mangle(Mangler.DEFAULT, rule, word);
+                if (mangled != null) {
+                    mangles.add(mangled);
+                }
+            }
+            assertEquals(originalMangles(word), mangles, word);
+        }
+    }
+
+    @Test
+    void errorsNameTheLine() {
+        assertError("line 2: unknown command 'x' in 'x'", "l", "x");
+        assertError("line 3: unknown command 'q' in 'q'", "# comment", "", "q");
+        assertError("line 1: '$' is missing an argument in '$'", "$");
+        assertError("line 1: 'i' is missing an argument in 'i1'", "i1");
+        assertError("line 1: '\\' at the end of the line in '$\\'", "$\\");
+        assertError("line 1: 'a' is not a position (0-9, A-Z) in 'Ta'", "Ta");
+        assertError("line 1: unclosed '[' in '$[ab'", "$[ab");
+        assertError("line 1: empty class '[]' in '$[]'", "$[]");
+        assertError("line 1: backward range z-a in '$[z-a]'", "$[z-a]");
+        assertError("line 1: a rule makes words over 64 times longer in 'ddddddd'", "ddddddd");
+        assertError("line 1: more than " + Mangler.MAX_RULES + " rules in '$[a-zA-Z0-9]$[a-zA-Z0-9]'",
+                "$[a-zA-Z0-9]$[a-zA-Z0-9]");
+    }
+
+    @Test
+    void loadNamesTheFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("rules.txt");
+        Files.writeString(file, "u\n$[0-9]\n");
+        assertEquals(11, Mangler.load(file).ruleCount());
+
+        Files.writeString(file, "u\n%\n");
+        IOException err = assertThrows(IOException.class, () -> Mangler.load(file));
+        assertEquals(file + ": line 2: unknown command '%' in '%'", err.getMessage());
+    }
+
+    private static void assertMangles(String rule, String word, String expected) {
+        Mangler mangler = Mangler.compile(List.of(rule));
+        assertEquals(1, mangler.ruleCount(), rule);
+        if (expected == null) {
+            assertNull(mangle(mangler, 0, word), rule + " on " + word);
+        } else {
+            assertEquals(expected, mangle(mangler, 0, word), rule + " on " + word);
+        }
+    }
+
+    private static void assertError(String message, String... lines) {
+        IllegalArgumentException err = assertThrows(IllegalArgumentException.class,
+                () -> Mangler.compile(List.of(lines)));
+        assertEquals(message, err.getMessage());
+    }
+
+    // The rule's output, or null if it rejects the word or leaves nothing of it.
+    private static String mangle(Mangler mangler, int rule, String word) {
+        char[] out = new char[mangler.maxOutput(word.length())];
+        int length = mangler.apply(rule, word.toCharArray(), word.length(), out);
+        return length == 0 ? null : new String(out, 0, length);
+    }
+
+    // The mangles the crackers tried before rules files, as they computed them.
+    private static Set<String> originalMangles(String word) {
+        Set<String> mangles = new HashSet<>();
+        String chars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        for (char ch : chars.toCharArray()) {
+            mangles.add(ch + word);
+            mangles.add(word + ch);
+        }
+        mangles.add(word.substring(1));
+        mangles.add(word.substring(0, word.length() - 1));
+        String reversed = new StringBuilder(word).reverse().toString();
+        mangles.add(reversed);
+        mangles.add(word + word);
+        mangles.add(word + reversed);
+        mangles.add(reversed + word);
+        mangles.add(word.toUpperCase());
+        mangles.add(word.toLowerCase());
+        mangles.add(Character.toUpperCase(word.charAt(0)) + word.substring(1).toLowerCase());
+        mangles.add(Character.toLowerCase(word.charAt(0)) + word.substring(1).toUpperCase());
+        mangles.add(toggleCase(word, true));
+        mangles.add(toggleCase(word, false));
+        mangles.remove("");
+        return mangles;
+    }
+
+    private static String toggleCase(String word, boolean upperFirst) {
+        StringBuilder toggled = new StringBuilder();
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (Character.isLetter(c)) {
+                boolean upper = (i % 2 == 0) == upperFirst;
+                toggled.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+            } else {
+                toggled.append(c);
+            }
+        }
+        return toggled.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package cracker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of how {@link SaltIndex} turns the hashes of a password file into
+ * targets: which users share one, and when a salt group is exhausted.
+ */
+final class SaltIndexTest {
+
+    @Test
+    void identicalHashesShareATarget() {
+        SaltIndex index = new SaltIndex(List.of("UxiB2dOBAMUgY", "G1tn.EBEqNIXg", "UxiB2dOBAMUgY"));
+        assertEquals(2, index.groupCount());
+        assertEquals(index.targetOf(0), index.targetOf(2));
+        assertNotEquals(index.targetOf(0), index.targetOf(1));
+        assertArrayEquals(new int[] { 0, 2 }, index.claim(index.targetOf(0)));
+        assertNull(index.claim(index.targetOf(2)));
+    }
+
+    @Test
+    void spellingsOfOneSaltShareATarget() {
+        // '[' and 'U' are one salt character to crypt, so these are one hash
+        assertEquals(jcrypt.saltBits("Ux"), jcrypt.saltBits("[x"));
+        SaltIndex index = new SaltIndex(List.of("UxiB2dOBAMUgY", "[xiB2dOBAMUgY"));
+        assertEquals(1, index.groupCount());
+        assertEquals(1, index.targetCount(0));
+        assertEquals(index.targetOf(0), index.targetOf(1));
+        assertEquals(0, index.findTarget(0, jcrypt.decodeHash("UxiB2dOBAMUgY")));
+
+        assertFalse(index.isExhausted(0));
+        assertArrayEquals(new int[] { 0, 1 }, index.claim(index.targetOf(1)));
+        assertTrue(index.isCracked(index.targetOf(0)));
+        assertTrue(index.isExhausted(0));
+    }
+
+    @Test
+    void undecodableHashesComeAfterEveryGroup() {
+        SaltIndex index = new SaltIndex(List.of("not a hash", "UxiB2dOBAMUgY", "not a hash", "*"));
+        assertEquals(1, index.groupCount());
+        assertEquals(0, index.targetOf(1));
+        assertEquals(1, index.targetOf(0));
+        assertEquals(index.targetOf(0), index.targetOf(2));
+        assertEquals(2, index.targetOf(3));
+        assertEquals(-1, index.groupOf(index.targetOf(3)));
+    }
+}
@@ -0,0 +1,73 @@
+package cracker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Known-answer tests of {@link VectorCrypt} against {@link jcrypt}, on the
+ * answers of {@link BitslicedCryptTest}. Skipped unless the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, as the build does.
+ */
+final class VectorCryptTest {
+
+    @BeforeEach
+    void requireVectorModule() {
+        assumeTrue(BatchVerifier.Engine.VECTOR.isAvailable(), "jdk.incubator.vector is not resolved");
+    }
+
+    @Test
+    void everyLaneMatchesJcryptUnderEverySalt() {
+        List<String> passwords = BitslicedCryptTest.passwords(VectorCrypt.LANES);
+        VectorCrypt crypt = new VectorCrypt();
+        for (int lane = 0; lane < VectorCrypt.LANES; lane++) {
+            crypt.setKey(lane, jcrypt.canonicalKey(passwords.get(lane)));
+        }
+        long[] hashes = new long[VectorCrypt.LANES];
+        for (String salt : BitslicedCryptTest.salts()) {
+            crypt.crypt(jcrypt.saltBits(salt));
+            crypt.hashes(hashes);
+            long[] expected = BitslicedCryptTest.expectedHashes(salt, passwords);
+            for (int lane = 0; lane < VectorCrypt.LANES; lane++) {
+                assertEquals(expected[lane], crypt.hash(lane), salt + " " + passwords.get(lane));
+            }
+            assertArrayEquals(expected, hashes, salt);
+        }
+    }
+
+    @Test
+    void firstMatchFindsTheLowestLaneWithinTheBatch() {
+        List<String> passwords = BitslicedCryptTest.passwords(VectorCrypt.LANES);
+        int last = VectorCrypt.LANES - 1;
+        passwords.set(last, "zOOSL");
+        passwords.set(last - 1, "only at the end");
+        VectorCrypt crypt = new VectorCrypt();
+        for (int lane = 0; lane < VectorCrypt.LANES; lane++) {
+            crypt.setKey(lane, jcrypt.canonicalKey(passwords.get(lane)));
+        }
+        for (String[] known : BitslicedCryptTest.PASSWD1) {
+            int lane = passwords.indexOf(known[1]);
+            crypt.crypt(jcrypt.saltBits(known[0].substring(0, 2)));
+            assertEquals(lane, crypt.firstMatch(jcrypt.decodeHash(known[0]), VectorCrypt.LANES), known[1]);
+            assertEquals(lane, crypt.firstMatch(jcrypt.decodeHash(known[0]), lane + 1), known[1]);
+            assertEquals(-1, crypt.firstMatch(jcrypt.decodeHash(known[0]), lane), known[1]);
+        }
+
+        // Lanes past the batch's size are never matched, whichever word they are in
+        String hash = jcrypt.crypt("qq", "only at the end");
+        crypt.crypt(jcrypt.saltBits("qq"));
+        assertEquals(last - 1, crypt.firstMatch(jcrypt.decodeHash(hash), VectorCrypt.LANES));
+        assertEquals(-1, crypt.firstMatch(jcrypt.decodeHash(hash), last - 1));
+        assertEquals(-1, crypt.firstMatch(jcrypt.decodeHash(hash), 64));
+        assertEquals(-1, crypt.firstMatch(jcrypt.decodeHash(hash), 1));
+    }
+
+    @Test
+    void partialBatchChecksOnlyItsOwnLanes() {
+        BitslicedCryptTest.assertPartialBatches(BatchVerifier.Engine.VECTOR, VectorCrypt.LANES);
+    }
+}